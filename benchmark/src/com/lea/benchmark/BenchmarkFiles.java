@@ -0,0 +1,50 @@
+package com.lea.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * 基准测试用的临时文件
+ *
+ * @author lzc
+ * @create 2026.10.17 15:05
+ */
+public class BenchmarkFiles {
+
+    /*
+    创建指定大小、填满随机数据的临时文件（不用稀疏文件，否则读空洞的速度没有参考价值）
+     */
+    public static Path create(long size) throws IOException {
+        Path path = Files.createTempFile("nio-bench-", ".dat");
+        ByteBuffer block = ByteBuffer.allocateDirect(1024 * 1024);
+        byte[] random = new byte[block.capacity()];
+        new Random(size).nextBytes(random);
+        block.put(random);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < size) {
+                block.clear();
+                block.limit((int) Math.min(block.capacity(), size - written));
+                while (block.hasRemaining()) {
+                    written += channel.write(block);
+                }
+            }
+        }
+        return path;
+    }
+
+    public static Path target() throws IOException {
+        return Files.createTempFile("nio-bench-copy-", ".dat");
+    }
+
+    public static void delete(Path path) throws IOException {
+        if (path != null) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
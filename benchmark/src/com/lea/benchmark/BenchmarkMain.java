@@ -0,0 +1,35 @@
+package com.lea.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行所有复制 / 缓冲区基准测试，打开 GC 分析器（分配速率），结果写入 jmh-result.json
+ *
+ *  mvn package && java -cp benchmark/target/benchmarks.jar com.lea.benchmark.BenchmarkMain
+ *  其余 JMH 参数照常传入，例如只测小文件：-p fileSize=4096,1048576
+ *
+ * @author lzc
+ * @create 2026.10.17 16:00
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(BufferedCopyBenchmark.class.getSimpleName())
+                .include(ChannelCopyBenchmark.class.getSimpleName())
+                .include(ByteBufferBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.lea.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过缓冲区复制文件：对应 ChannelTest.test1（堆缓冲区循环）和 test4（分散读取 / 聚集写入），
+ * 外加直接缓冲区循环作对比。文件大小 x 缓冲区大小
+ *
+ * @author lzc
+ * @create 2026.10.17 15:15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BufferedCopyBenchmark {
+
+    // 4KB 64KB 1MB 64MB 1GB 4GB
+    @Param({"4096", "65536", "1048576", "67108864", "1073741824", "4294967296"})
+    public long fileSize;
+
+    // 1KB 8KB 64KB 1MB
+    @Param({"1024", "8192", "65536", "1048576"})
+    public int bufferSize;
+
+    private Path source;
+    private Path target;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+    private ByteBuffer[] scatter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        source = BenchmarkFiles.create(fileSize);
+        target = BenchmarkFiles.target();
+        heap = ByteBuffer.allocate(bufferSize);
+        direct = ByteBuffer.allocateDirect(bufferSize);
+        // test4 的写法：一个 100 字节的“头”加一个“体”
+        scatter = new ByteBuffer[]{ByteBuffer.allocate(100), ByteBuffer.allocate(bufferSize)};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(source);
+        BenchmarkFiles.delete(target);
+    }
+
+    @Benchmark
+    public long heapBufferLoop() throws IOException {
+        return copy(heap);
+    }
+
+    @Benchmark
+    public long directBufferLoop() throws IOException {
+        return copy(direct);
+    }
+
+    @Benchmark
+    public long scatterGather() throws IOException {
+        long total = 0;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (in.read(scatter) != -1) {
+                for (ByteBuffer buffer : scatter) {
+                    buffer.flip();
+                }
+                while (scatter[0].hasRemaining() || scatter[1].hasRemaining()) {
+                    total += out.write(scatter);
+                }
+                for (ByteBuffer buffer : scatter) {
+                    buffer.clear();
+                }
+            }
+        }
+        return total;
+    }
+
+    private long copy(ByteBuffer buffer) throws IOException {
+        long total = 0;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    total += out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,123 @@
+package com.lea.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直接缓冲区与非直接缓冲区（BufferTest.test3）
+ *  allocate：分配的代价，配合 -prof gc 看分配速率
+ *  channelRead：从文件通道读入，堆缓冲区在 JDK 内部还要经过一次临时直接缓冲区
+ *  putGet：在 Java 代码中逐个读写 long
+ *
+ * @author lzc
+ * @create 2026.10.17 15:45
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ByteBufferBenchmark {
+
+    private static final long FILE_SIZE = 16L * 1024 * 1024;
+
+    // 1KB 8KB 64KB 1MB
+    @Param({"1024", "8192", "65536", "1048576"})
+    public int bufferSize;
+
+    private Path file;
+    private FileChannel channel;
+    private long position;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = BenchmarkFiles.create(FILE_SIZE);
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        heap = ByteBuffer.allocate(bufferSize);
+        direct = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        channel.close();
+        BenchmarkFiles.delete(file);
+    }
+
+    @Benchmark
+    public ByteBuffer allocateHeap() {
+        return ByteBuffer.allocate(bufferSize);
+    }
+
+    @Benchmark
+    public ByteBuffer allocateDirect() {
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Benchmark
+    public int channelReadHeap() throws IOException {
+        return read(heap);
+    }
+
+    @Benchmark
+    public int channelReadDirect() throws IOException {
+        return read(direct);
+    }
+
+    @Benchmark
+    public long putGetHeap() {
+        return putGet(heap);
+    }
+
+    @Benchmark
+    public long putGetDirect() {
+        return putGet(direct);
+    }
+
+    /*
+    按位置循环读文件，每次读满一个缓冲区
+     */
+    private int read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        if (position + bufferSize > FILE_SIZE) {
+            position = 0;
+        }
+        int len = channel.read(buffer, position);
+        position += len;
+        return len;
+    }
+
+    private static long putGet(ByteBuffer buffer) {
+        buffer.clear();
+        long i = 0;
+        while (buffer.remaining() >= 8) {
+            buffer.putLong(i++);
+        }
+        buffer.flip();
+        long sum = 0;
+        while (buffer.remaining() >= 8) {
+            sum += buffer.getLong();
+        }
+        return sum;
+    }
+}
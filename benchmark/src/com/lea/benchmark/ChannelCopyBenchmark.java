@@ -0,0 +1,109 @@
+package com.lea.benchmark;
+
+import com.lea.channel.ParallelFileCopier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不经过用户缓冲区的复制：对应 ChannelTest.test2（内存映射文件）、test3（transferFrom）
+ * 和 test6（ParallelFileCopier），外加 transferTo。只和文件大小有关
+ *
+ * @author lzc
+ * @create 2026.10.17 15:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChannelCopyBenchmark {
+
+    // 单个 MappedByteBuffer 最大 2GB，更大的文件按窗口映射
+    private static final long MAX_WINDOW = 1024L * 1024 * 1024;
+
+    // 4KB 64KB 1MB 64MB 1GB 4GB
+    @Param({"4096", "65536", "1048576", "67108864", "1073741824", "4294967296"})
+    public long fileSize;
+
+    private Path source;
+    private Path target;
+    private final ParallelFileCopier copier = new ParallelFileCopier();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        source = BenchmarkFiles.create(fileSize);
+        target = BenchmarkFiles.target();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(source);
+        BenchmarkFiles.delete(target);
+    }
+
+    @Benchmark
+    public long mappedBuffer() throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            for (long position = 0; position < size; position += MAX_WINDOW) {
+                long length = Math.min(MAX_WINDOW, size - position);
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, position, length);
+                dst.put(src);
+            }
+            return size;
+        }
+    }
+
+    @Benchmark
+    public long transferFrom() throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += out.transferFrom(in, position, size - position);
+            }
+            return position;
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return position;
+        }
+    }
+
+    @Benchmark
+    public long parallelMapped() throws IOException {
+        return copier.copy(source, target);
+    }
+}
@@ -0,0 +1,53 @@
+package com.lea.benchmark;
+
+import com.lea.select.reactor.ReactorConfig;
+import com.lea.select.reactor.ReactorServer;
+
+import java.net.InetSocketAddress;
+
+/**
+ * LoadGenerator --mode=echo 的被测服务端：主从 Reactor 回显，可以切换默认模式和忙轮询模式
+ *
+ *  java -cp benchmark/target/benchmarks.jar com.lea.benchmark.EchoServerMain --workers=2 --busyPoll=10000
+ *
+ *  参数：--port（9898）--workers（2）--busyPoll（0，不空转）--tcpNoDelay（true）
+ *
+ * @author lzc
+ * @create 2026.10.18 00:30
+ */
+public class EchoServerMain {
+
+    public static void main(String[] args) throws Exception {
+        int port = 9898;
+        ReactorConfig config = new ReactorConfig().workerCount(2).tcpNoDelay(true).backlog(1024);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("expected --name=value: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "workers":
+                    config.workerCount(Integer.parseInt(value));
+                    break;
+                case "busyPoll":
+                    config.busyPoll(Integer.parseInt(value));
+                    break;
+                case "tcpNoDelay":
+                    config.tcpNoDelay(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        ReactorServer server = new ReactorServer(new InetSocketAddress(port), config,
+                () -> (connection, buffer) -> connection.write(buffer));
+        server.start();
+        System.out.println("echo server on " + server.localAddress() + "，workers=" + config.workerCount()
+                + "，busyPoll=" + config.busyPollIterations());
+        server.join();
+    }
+}
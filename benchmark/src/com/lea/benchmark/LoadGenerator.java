@@ -0,0 +1,402 @@
+package com.lea.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回环网络压测：同时打开大量连接，按指定速率发送固定大小的消息，
+ * 用 HdrHistogram 记录延迟，结果写入 JSON 文件，便于和历史结果对比
+ *
+ *  一、连接建立：非阻塞 connect，记录每个连接的建立耗时和总体建连速率
+ *  二、发送：每个线程一个 Selector 负责一部分连接；限速时按计划时间发送，
+ *      延迟从计划时间算起（服务端变慢导致的排队也计入延迟，避免 coordinated omission）
+ *  三、echo 模式每个连接同时只有一条消息在途，等服务端原样返回；
+ *      send 模式只要求写入完成，用于 NONBlocking.server()、BlockingNIO2 这类只收不回的服务端
+ *  四、udp 只支持 send 模式，对应 NonBlockingNIO2.receive()
+ *
+ *  java -cp benchmark/target/benchmarks.jar com.lea.benchmark.LoadGenerator --label=reactor --mode=echo
+ *      --connections=2000 --messageSize=128 --rate=100000 --duration=30
+ *
+ * @author lzc
+ * @create 2026.10.17 16:50
+ */
+public class LoadGenerator {
+
+    // 延迟上限 1 分钟，3 位有效数字
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoadOptions options;
+    private final InetSocketAddress address;
+    // 有线程在建连接阶段失败，其他线程过了建连接的关口后不再开始发送
+    private volatile boolean failed;
+
+    public LoadGenerator(LoadOptions options) {
+        this.options = options;
+        this.address = new InetSocketAddress(options.host, options.port);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        LoadReport report = new LoadGenerator(options).run();
+        report.print(System.out);
+        report.write(options.output);
+        System.out.println("结果已写入 " + options.output);
+    }
+
+    public LoadReport run() throws Exception {
+        Worker[] workers = new Worker[options.threads];
+        // 所有线程都建完连接（或者失败）才开始发送；用 CountDownLatch 而不是 CyclicBarrier，
+        // 失败的线程也计数一次，还在建连接的线程之后到达时不会等在一个新的屏障上
+        CountDownLatch connected = new CountDownLatch(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            int count = options.connections / workers.length + (i < options.connections % workers.length ? 1 : 0);
+            workers[i] = new Worker(count, connected);
+        }
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = new Thread(workers[i], "loadgen-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Throwable error = null;
+        for (Worker worker : workers) {
+            if (worker.error != null && error == null) {
+                error = worker.error;
+            }
+        }
+        if (error != null) {
+            throw new IOException("worker failed", error);
+        }
+        LoadReport report = new LoadReport(options);
+        for (Worker worker : workers) {
+            report.add(worker);
+        }
+        return report;
+    }
+
+    /*
+    一个压测线程
+     */
+    final class Worker implements Runnable {
+
+        private final int count;
+        private final CountDownLatch connected;
+        private final Selector selector;
+        private final List<Client> clients = new ArrayList<>();
+
+        final Histogram latency = new Histogram(MAX_LATENCY, 3);
+        final Histogram connectLatency = new Histogram(MAX_LATENCY, 3);
+        long connectFailures;
+        long connectNanos;
+        long sent;
+        long completed;
+        long bytes;
+        long measureNanos;
+        Throwable error;
+
+        private long measureStart;
+        // 轮询发送的下一个连接
+        private int next;
+
+        Worker(int count, CountDownLatch connected) throws IOException {
+            this.count = count;
+            this.connected = connected;
+            this.selector = Selector.open();
+        }
+
+        @Override
+        public void run() {
+            boolean arrived = false;
+            try {
+                connectAll();
+                arrived = true;
+                connected.countDown();
+                connected.await();
+                if (failed) {
+                    // 其他线程建连接失败，错误由它报告
+                    return;
+                }
+                load();
+            } catch (Throwable e) {
+                error = e;
+                failed = true;
+                if (!arrived) {
+                    // 还没计数就失败时也计数一次，其他线程不会一直等下去
+                    connected.countDown();
+                }
+            } finally {
+                for (Client client : clients) {
+                    client.close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private void connectAll() throws IOException {
+            long start = System.nanoTime();
+            int pending = 0;
+            for (int i = 0; i < count; i++) {
+                Client client = new Client();
+                try {
+                    if (options.udp()) {
+                        DatagramChannel channel = DatagramChannel.open();
+                        channel.configureBlocking(false);
+                        channel.connect(address);
+                        client.channel = channel;
+                        clients.add(client);
+                        continue;
+                    }
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, options.tcpNoDelay);
+                    client.channel = channel;
+                    client.startNanos = System.nanoTime();
+                    if (channel.connect(address)) {
+                        connectLatency.recordValue(System.nanoTime() - client.startNanos);
+                        clients.add(client);
+                    } else {
+                        channel.register(selector, SelectionKey.OP_CONNECT, client);
+                        pending++;
+                    }
+                } catch (IOException e) {
+                    connectFailures++;
+                    client.close();
+                }
+            }
+            long deadline = start + TimeUnit.SECONDS.toNanos(options.connectTimeoutSeconds);
+            while (pending > 0 && System.nanoTime() < deadline) {
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Client client = (Client) key.attachment();
+                    pending--;
+                    try {
+                        ((SocketChannel) key.channel()).finishConnect();
+                        connectLatency.recordValue(System.nanoTime() - client.startNanos);
+                        key.interestOps(0);
+                        client.connected = true;
+                        clients.add(client);
+                    } catch (IOException e) {
+                        connectFailures++;
+                        client.close();
+                    }
+                }
+            }
+            // 超时没有连上的
+            for (SelectionKey key : selector.keys()) {
+                Client client = (Client) key.attachment();
+                if (!client.connected && client.channel.isOpen()) {
+                    connectFailures++;
+                    client.close();
+                }
+            }
+            connectNanos = System.nanoTime() - start;
+        }
+
+        private void load() throws IOException {
+            for (Client client : clients) {
+                client.prepare();
+            }
+            if (clients.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            measureStart = now + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+            long end = measureStart + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+            // 本线程的发送间隔
+            long interval = options.rate > 0 ? TimeUnit.SECONDS.toNanos(1) * options.threads / options.rate : 0;
+            long nextSend = now;
+            while ((now = System.nanoTime()) < end) {
+                if (interval == 0) {
+                    // 不限速：所有空闲连接立即发送
+                    for (Client client : clients) {
+                        if (!client.busy && client.channel.isOpen()) {
+                            send(client, now);
+                        }
+                    }
+                } else {
+                    while (nextSend <= now) {
+                        Client client = nextIdle();
+                        if (client == null) {
+                            // 所有连接都有消息在途，计划时间不前移，延迟会把排队时间算进去
+                            break;
+                        }
+                        send(client, nextSend);
+                        nextSend += interval;
+                    }
+                }
+                long waitNanos = interval == 0 ? TimeUnit.MILLISECONDS.toNanos(10) : Math.max(0, nextSend - System.nanoTime());
+                if (waitNanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+                    selector.selectNow();
+                } else {
+                    selector.select(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                }
+                processSelectedKeys();
+            }
+            measureNanos = end - measureStart;
+        }
+
+        private Client nextIdle() {
+            for (int i = 0; i < clients.size(); i++) {
+                Client client = clients.get(next);
+                next = (next + 1) % clients.size();
+                if (!client.busy && client.channel.isOpen()) {
+                    return client;
+                }
+            }
+            return null;
+        }
+
+        private void send(Client client, long intended) throws IOException {
+            client.busy = true;
+            client.intended = intended;
+            client.out.rewind();
+            client.in.clear();
+            sent++;
+            write(client);
+        }
+
+        private void write(Client client) throws IOException {
+            try {
+                while (client.out.hasRemaining()) {
+                    int n = client.udp() ? ((DatagramChannel) client.channel).write(client.out)
+                            : ((SocketChannel) client.channel).write(client.out);
+                    if (n == 0) {
+                        client.interest(selector, SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // 被服务端关闭的连接不再参与压测
+                client.close();
+                return;
+            }
+            if (options.echo()) {
+                client.interest(selector, SelectionKey.OP_READ);
+            } else {
+                client.interest(selector, 0);
+                complete(client);
+            }
+        }
+
+        private void processSelectedKeys() throws IOException {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Client client = (Client) key.attachment();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isWritable()) {
+                    write(client);
+                } else if (key.isReadable()) {
+                    read(client);
+                }
+            }
+        }
+
+        private void read(Client client) throws IOException {
+            SocketChannel channel = (SocketChannel) client.channel;
+            int len;
+            try {
+                while ((len = channel.read(client.in)) > 0) {
+                    if (!client.in.hasRemaining()) {
+                        client.interest(selector, 0);
+                        complete(client);
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                len = -1;
+            }
+            if (len < 0) {
+                client.close();
+            }
+        }
+
+        private void complete(Client client) {
+            long now = System.nanoTime();
+            client.busy = false;
+            if (client.intended >= measureStart) {
+                completed++;
+                bytes += options.messageSize;
+                latency.recordValue(Math.min(now - client.intended, MAX_LATENCY));
+            }
+        }
+    }
+
+    /*
+    一个连接（udp 时是一个已 connect 的 DatagramChannel）
+     */
+    final class Client {
+
+        SelectableChannel channel;
+        ByteBuffer out;
+        ByteBuffer in;
+        boolean busy;
+        boolean connected;
+        long intended;
+        long startNanos;
+        private SelectionKey key;
+
+        void prepare() {
+            out = ByteBuffer.allocateDirect(options.messageSize);
+            while (out.hasRemaining()) {
+                out.put((byte) ('a' + out.position() % 26));
+            }
+            out.flip();
+            in = ByteBuffer.allocateDirect(options.messageSize);
+        }
+
+        boolean udp() {
+            return channel instanceof DatagramChannel;
+        }
+
+        void interest(Selector selector, int ops) throws IOException {
+            if (key == null) {
+                key = channel.keyFor(selector);
+            }
+            if (key == null) {
+                if (ops != 0) {
+                    key = channel.register(selector, ops, this);
+                }
+            } else {
+                key.interestOps(ops);
+            }
+        }
+
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.lea.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式 --name=value
+ *
+ * @author lzc
+ * @create 2026.10.17 16:40
+ */
+public class LoadOptions {
+
+    // 结果中的标签，用来区分被测服务端，例如 blocking / selector / reactor
+    String label = "default";
+    // tcp 或 udp
+    String protocol = "tcp";
+    String host = "localhost";
+    int port = 9898;
+    int connections = 1000;
+    int messageSize = 64;
+    // 所有连接合计每秒发送的消息数，0 表示不限速（每个连接收到回复 / 写完后立即发下一条）
+    long rate = 0;
+    // echo：等服务端原样返回后才算完成，测往返延迟；send：写完即完成，测写入延迟
+    String mode = "send";
+    int durationSeconds = 30;
+    int warmupSeconds = 5;
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    int connectTimeoutSeconds = 10;
+    // 客户端关闭 Nagle 算法，测往返延迟时不让小消息在客户端排队
+    boolean tcpNoDelay = true;
+    String output = "loadgen-result.json";
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("expected --name=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        LoadOptions options = new LoadOptions();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "label":
+                    options.label = value;
+                    break;
+                case "protocol":
+                    options.protocol = value;
+                    break;
+                case "host":
+                    options.host = value;
+                    break;
+                case "port":
+                    options.port = Integer.parseInt(value);
+                    break;
+                case "connections":
+                    options.connections = Integer.parseInt(value);
+                    break;
+                case "messageSize":
+                    options.messageSize = Integer.parseInt(value);
+                    break;
+                case "rate":
+                    options.rate = Long.parseLong(value);
+                    break;
+                case "mode":
+                    options.mode = value;
+                    break;
+                case "duration":
+                    options.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    options.threads = Integer.parseInt(value);
+                    break;
+                case "connectTimeout":
+                    options.connectTimeoutSeconds = Integer.parseInt(value);
+                    break;
+                case "tcpNoDelay":
+                    options.tcpNoDelay = Boolean.parseBoolean(value);
+                    break;
+                case "output":
+                    options.output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: --" + entry.getKey());
+            }
+        }
+        if (!"tcp".equals(options.protocol) && !"udp".equals(options.protocol)) {
+            throw new IllegalArgumentException("protocol must be tcp or udp: " + options.protocol);
+        }
+        if (!"send".equals(options.mode) && !"echo".equals(options.mode)) {
+            throw new IllegalArgumentException("mode must be send or echo: " + options.mode);
+        }
+        if ("udp".equals(options.protocol) && "echo".equals(options.mode)) {
+            throw new IllegalArgumentException("udp only supports send mode");
+        }
+        options.threads = Math.max(1, Math.min(options.threads, options.connections));
+        return options;
+    }
+
+    boolean echo() {
+        return "echo".equals(mode);
+    }
+
+    boolean udp() {
+        return "udp".equals(protocol);
+    }
+}
@@ -0,0 +1,124 @@
+package com.lea.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测结果：汇总所有压测线程，输出到控制台和 JSON 文件
+ *
+ * @author lzc
+ * @create 2026.10.17 17:20
+ */
+public class LoadReport {
+
+    private final LoadOptions options;
+    private final Histogram latency = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+    private final Histogram connectLatency = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+    private long connected;
+    private long connectFailures;
+    private long connectNanos;
+    private long sent;
+    private long completed;
+    private long bytes;
+    private long measureNanos;
+
+    LoadReport(LoadOptions options) {
+        this.options = options;
+    }
+
+    void add(LoadGenerator.Worker worker) {
+        latency.add(worker.latency);
+        connectLatency.add(worker.connectLatency);
+        connected += worker.connectLatency.getTotalCount();
+        connectFailures += worker.connectFailures;
+        // 各线程并行建连，取最慢的一个
+        connectNanos = Math.max(connectNanos, worker.connectNanos);
+        sent += worker.sent;
+        completed += worker.completed;
+        bytes += worker.bytes;
+        measureNanos = Math.max(measureNanos, worker.measureNanos);
+    }
+
+    public double messagesPerSecond() {
+        return measureNanos == 0 ? 0 : completed * 1e9 / measureNanos;
+    }
+
+    public double megabytesPerSecond() {
+        return measureNanos == 0 ? 0 : bytes * 1e9 / measureNanos / (1024 * 1024);
+    }
+
+    public double connectionsPerSecond() {
+        return connectNanos == 0 ? 0 : connected * 1e9 / connectNanos;
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "[%s] %s/%s 连接 %d（失败 %d），建连 %.0f 个/秒%n",
+                options.label, options.protocol, options.mode, connected, connectFailures, connectionsPerSecond());
+        out.printf(Locale.ROOT, "吞吐量 %.0f 条/秒，%.2f MB/秒%n", messagesPerSecond(), megabytesPerSecond());
+        out.printf(Locale.ROOT, "延迟(us) p50 %.1f  p99 %.1f  p999 %.1f  max %.1f%n",
+                micros(latency.getValueAtPercentile(50)), micros(latency.getValueAtPercentile(99)),
+                micros(latency.getValueAtPercentile(99.9)), micros(latency.getMaxValue()));
+    }
+
+    public void write(String path) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        field(json, "timestamp", Instant.now().toString());
+        field(json, "label", options.label);
+        field(json, "protocol", options.protocol);
+        field(json, "mode", options.mode);
+        field(json, "host", options.host);
+        field(json, "port", options.port);
+        field(json, "connections", options.connections);
+        field(json, "messageSize", options.messageSize);
+        field(json, "rate", options.rate);
+        field(json, "durationSeconds", options.durationSeconds);
+        field(json, "threads", options.threads);
+        field(json, "connected", connected);
+        field(json, "connectFailures", connectFailures);
+        field(json, "connectionsPerSecond", connectionsPerSecond());
+        field(json, "sent", sent);
+        field(json, "completed", completed);
+        field(json, "messagesPerSecond", messagesPerSecond());
+        field(json, "megabytesPerSecond", megabytesPerSecond());
+        histogram(json, "latencyMicros", latency);
+        json.append(",\n");
+        histogram(json, "connectLatencyMicros", connectLatency);
+        json.append("\n}\n");
+        Files.write(Paths.get(path), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void field(StringBuilder json, String name, Object value) {
+        json.append("  \"").append(name).append("\": ");
+        if (value instanceof String) {
+            json.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        } else if (value instanceof Double) {
+            json.append(String.format(Locale.ROOT, "%.3f", (Double) value));
+        } else {
+            json.append(value);
+        }
+        json.append(",\n");
+    }
+
+    private static void histogram(StringBuilder json, String name, Histogram histogram) {
+        json.append("  \"").append(name).append("\": {");
+        json.append(String.format(Locale.ROOT,
+                "\"count\": %d, \"p50\": %.1f, \"p90\": %.1f, \"p99\": %.1f, \"p999\": %.1f, \"max\": %.1f, \"mean\": %.1f}",
+                histogram.getTotalCount(),
+                micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(90)),
+                micros(histogram.getValueAtPercentile(99)), micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getMaxValue()), histogram.getMean() / 1000.0));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
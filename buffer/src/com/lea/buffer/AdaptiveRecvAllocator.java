@@ -0,0 +1,229 @@
+package com.lea.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 自适应的接收缓冲区大小
+ *
+ *  固定 1024 字节的读缓冲区：大流量的连接每 MB 要几百次 read 系统调用，聊天式的连接又用不满
+ *
+ *  一、大小等级表：16 ~ 496 按 16 递增，512 以上按 2 的幂递增，大小只在 [min, max] 对应的等级之间变化
+ *  二、每个连接一个 Handle，记录当前等级：
+ *      一次读就把缓冲区读满，或者一次读就绪事件读到的总量达到当前大小，立即上调 4 个等级；
+ *      连续两次读就绪事件读到的总量都不超过低一级的大小，才下调 1 个等级（一次偶然的小包不会缩小）
+ *  三、继续读还是让出：本次读满了缓冲区（socket 里很可能还有数据）并且没有超过一次事件的读取次数上限才继续读，
+ *      没读满说明 socket 已经读空，回到 select() 等下一次就绪，不再多一次返回 0 的 read
+ *
+ *  使用方式（一次读就绪事件）：
+ *      handle.reset();
+ *      do {
+ *          ByteBuffer buf = handle.allocate(pool);
+ *          int len = channel.read(buf);
+ *          handle.lastBytesRead(len);
+ *          ...
+ *          pool.release(buf);
+ *      } while (handle.continueReading());
+ *      handle.readComplete();
+ *
+ *  AdaptiveRecvAllocator 本身不可变，可以多个线程共用；Handle 不是线程安全的，属于一个连接
+ *
+ * @author lzc
+ * @create 2026.10.18 00:10
+ */
+public class AdaptiveRecvAllocator {
+
+    public static final int DEFAULT_MIN = 64;
+    public static final int DEFAULT_INITIAL = 2048;
+    public static final int DEFAULT_MAX = 64 * 1024;
+
+    private static final int INDEX_INCREMENT = 4;
+    private static final int INDEX_DECREMENT = 1;
+
+    private static final int[] SIZE_TABLE;
+
+    static {
+        int[] table = new int[31 + 22];
+        int count = 0;
+        for (int size = 16; size < 512; size += 16) {
+            table[count++] = size;
+        }
+        for (int size = 512; size > 0; size <<= 1) {
+            table[count++] = size;
+        }
+        SIZE_TABLE = Arrays.copyOf(table, count);
+    }
+
+    private final int minIndex;
+    private final int maxIndex;
+    private final int initialIndex;
+    private final int maxReadsPerEvent;
+
+    public AdaptiveRecvAllocator() {
+        this(DEFAULT_MIN, DEFAULT_INITIAL, DEFAULT_MAX);
+    }
+
+    public AdaptiveRecvAllocator(int min, int initial, int max) {
+        this(min, initial, max, 16);
+    }
+
+    /*
+    min / max 向上取到最近的等级，initial 取 [min, max] 之间最近的等级
+     */
+    public AdaptiveRecvAllocator(int min, int initial, int max, int maxReadsPerEvent) {
+        if (min <= 0 || initial < min || max < initial) {
+            throw new IllegalArgumentException("min " + min + ", initial " + initial + ", max " + max);
+        }
+        if (maxReadsPerEvent <= 0) {
+            throw new IllegalArgumentException("maxReadsPerEvent: " + maxReadsPerEvent);
+        }
+        this.minIndex = sizeIndex(min);
+        this.maxIndex = sizeIndex(max);
+        this.initialIndex = Math.min(sizeIndex(initial), maxIndex);
+        this.maxReadsPerEvent = maxReadsPerEvent;
+    }
+
+    /*
+    一个连接的状态
+     */
+    public Handle newHandle() {
+        return new Handle();
+    }
+
+    public int minSize() {
+        return SIZE_TABLE[minIndex];
+    }
+
+    public int maxSize() {
+        return SIZE_TABLE[maxIndex];
+    }
+
+    /*
+    不小于 size 的最小等级
+     */
+    private static int sizeIndex(int size) {
+        int low = 0;
+        int high = SIZE_TABLE.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (SIZE_TABLE[mid] < size) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public final class Handle {
+
+        private int index = initialIndex;
+        private int nextSize = SIZE_TABLE[initialIndex];
+        // 上一次读就绪事件读到的总量已经偏小，再小一次就下调
+        private boolean decreaseNow;
+        // 本次读就绪事件中的统计
+        private int attemptedBytes;
+        private int lastBytesRead;
+        private int totalBytesRead;
+        private int reads;
+        // 本次事件中已经因为读满而放大过
+        private boolean grown;
+
+        private Handle() {
+        }
+
+        /*
+        下一次读应该使用的缓冲区大小
+         */
+        public int guess() {
+            return nextSize;
+        }
+
+        /*
+        从缓冲区池获取下一次读用的缓冲区，limit = guess()
+         */
+        public ByteBuffer allocate(BufferPool pool) {
+            ByteBuffer buffer = pool.acquire(nextSize);
+            attemptedBytes = buffer.remaining();
+            return buffer;
+        }
+
+        /*
+        不从缓冲区池获取时，告诉 Handle 本次读尝试读多少字节（buffer.remaining()）
+         */
+        public void attemptedBytesRead(int attemptedBytes) {
+            this.attemptedBytes = attemptedBytes;
+        }
+
+        /*
+        一次读就绪事件开始
+         */
+        public void reset() {
+            lastBytesRead = 0;
+            totalBytesRead = 0;
+            reads = 0;
+            grown = false;
+        }
+
+        /*
+        记录一次 read() 的返回值
+         */
+        public void lastBytesRead(int bytes) {
+            lastBytesRead = bytes;
+            if (bytes <= 0) {
+                return;
+            }
+            reads++;
+            totalBytesRead += bytes;
+            if (bytes == attemptedBytes) {
+                // 读满了，不等这次事件结束就先放大，本次事件接下来的读就用大缓冲区
+                record(bytes);
+                grown = true;
+            }
+        }
+
+        /*
+        是否继续读：上一次把缓冲区读满了，并且本次事件的读取次数没超过上限
+         */
+        public boolean continueReading() {
+            return lastBytesRead > 0 && lastBytesRead == attemptedBytes && reads < maxReadsPerEvent;
+        }
+
+        /*
+        一次读就绪事件结束，按读到的总量调整下一次的大小；
+        本次已经放大过的，总量是按放大前的缓冲区读的，只用来继续放大，不用来缩小
+         */
+        public void readComplete() {
+            if (totalBytesRead <= 0) {
+                return;
+            }
+            if (!grown || totalBytesRead >= nextSize) {
+                record(totalBytesRead);
+            }
+        }
+
+        private void record(int actual) {
+            if (actual <= SIZE_TABLE[Math.max(0, index - INDEX_DECREMENT)]) {
+                if (decreaseNow) {
+                    index = Math.max(index - INDEX_DECREMENT, minIndex);
+                    nextSize = SIZE_TABLE[index];
+                    decreaseNow = false;
+                } else {
+                    decreaseNow = true;
+                }
+            } else if (actual >= nextSize) {
+                index = Math.min(index + INDEX_INCREMENT, maxIndex);
+                nextSize = SIZE_TABLE[index];
+                decreaseNow = false;
+            }
+        }
+
+        public int reads() {
+            return reads;
+        }
+
+        public int totalBytesRead() {
+            return totalBytesRead;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.lea.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 直接缓冲区池
+ *
+ *  一、为什么要池化
+ *      allocate() 得到的堆缓冲区在做通道读写时，JDK 内部还要再拷贝到一个临时的直接缓冲区；
+ *      allocateDirect() 分配和回收的代价又很高。所以直接缓冲区应该分配一次，反复使用
+ *
+ *  二、结构
+ *      按 2 的幂划分大小等级（512B ~ 1MB），每个等级有：
+ *          线程本地缓存：无竞争，acquire/release 大部分命中这里
+ *          共享溢出栈：线程缓存满了放这里，其他线程缓存空了从这里取，无锁（CAS）实现
+ *      虚拟线程不用线程本地缓存，直接使用共享栈：虚拟线程通常一个连接一个、用完就结束，
+ *      每个虚拟线程的缓存都是新的，必然不命中，线程结束时缓存里的缓冲区也就丢了
+ *      超过最大等级的请求直接分配，不回收
+ *
+ *  三、使用方式
+ *      ByteBuffer buf = pool.acquire(1024);
+ *      try { ... } finally { pool.release(buf); }
+ *      release 之后不能再使用该缓冲区，也不能 release 它的 slice()/duplicate()
+ *
+ *  四、统计：hits() 从缓存取到的次数，misses() 缓存为空、新分配的次数，unpooled() 超过最大等级的次数，
+ *      计数用 LongAdder，多线程同时 acquire 不会争同一个计数器
+ *
+ *  五、泄漏检测
+ *      -Dcom.lea.buffer.leakDetection=true 开启（或者构造时指定），会记录每个未归还缓冲区的申请位置，
+ *      重复归还、归还不是本池分配的缓冲区会直接抛异常，reportLeaks() 打印仍未归还的缓冲区
+ *
+ * @author lzc
+ * @create 2026.10.17 10:30
+ */
+public class BufferPool {
+
+    public static final BufferPool DEFAULT = new BufferPool(64, 1024,
+            Boolean.getBoolean("com.lea.buffer.leakDetection"));
+
+    private static final int MIN_SHIFT = 9;
+    private static final int MAX_SHIFT = 20;
+    private static final int CLASS_COUNT = MAX_SHIFT - MIN_SHIFT + 1;
+
+    public static final int MIN_SIZE = 1 << MIN_SHIFT;
+    public static final int MAX_SIZE = 1 << MAX_SHIFT;
+
+    // 每个线程每个等级最多缓存几个
+    private final int threadCacheSize;
+    // 共享栈每个等级最多保存几个
+    private final int sharedCacheSize;
+    private final boolean leakDetection;
+
+    private final TreiberStack[] shared = new TreiberStack[CLASS_COUNT];
+    private final ThreadLocal<ArrayDeque<ByteBuffer>[]> threadCaches;
+    // 泄漏检测：未归还缓冲区 -> 申请时的调用栈
+    private final Map<ByteBuffer, Throwable> outstanding = new IdentityHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder unpooled = new LongAdder();
+
+    public BufferPool(int threadCacheSize, int sharedCacheSize, boolean leakDetection) {
+        this.threadCacheSize = threadCacheSize;
+        this.sharedCacheSize = sharedCacheSize;
+        this.leakDetection = leakDetection;
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            shared[i] = new TreiberStack();
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> {
+            @SuppressWarnings("unchecked")
+            ArrayDeque<ByteBuffer>[] caches = (ArrayDeque<ByteBuffer>[]) new ArrayDeque<?>[CLASS_COUNT];
+            for (int i = 0; i < CLASS_COUNT; i++) {
+                caches[i] = new ArrayDeque<>();
+            }
+            return caches;
+        });
+    }
+
+    /*
+    获取一个容量不小于 size 的直接缓冲区，position = 0，limit = size
+     */
+    public ByteBuffer acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size: " + size);
+        }
+        ByteBuffer buffer;
+        int index = sizeClass(size);
+        if (index < 0) {
+            // 超过最大等级，不池化
+            buffer = ByteBuffer.allocateDirect(size);
+            unpooled.increment();
+        } else {
+            buffer = Thread.currentThread().isVirtual() ? null : threadCaches.get()[index].pollFirst();
+            if (buffer == null) {
+                buffer = shared[index].pop();
+            }
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(MIN_SIZE << index);
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+        }
+        buffer.clear().limit(size);
+        if (leakDetection) {
+            synchronized (outstanding) {
+                outstanding.put(buffer, new Throwable("buffer acquired here, capacity " + buffer.capacity()));
+            }
+        }
+        return buffer;
+    }
+
+    /*
+    归还缓冲区，null 直接忽略
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (leakDetection) {
+            synchronized (outstanding) {
+                if (outstanding.remove(buffer) == null) {
+                    throw new IllegalStateException("buffer released twice or not acquired from this pool: " + buffer);
+                }
+            }
+        }
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || Integer.bitCount(capacity) != 1 || capacity < MIN_SIZE || capacity > MAX_SIZE) {
+            return;
+        }
+        int index = Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+        if (!Thread.currentThread().isVirtual()) {
+            ArrayDeque<ByteBuffer> cache = threadCaches.get()[index];
+            if (cache.size() < threadCacheSize) {
+                cache.offerFirst(buffer);
+                return;
+            }
+        }
+        shared[index].push(buffer, sharedCacheSize);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long unpooled() {
+        return unpooled.sum();
+    }
+
+    /*
+    打印所有未归还缓冲区的申请位置，返回未归还的数量；未开启泄漏检测时返回 -1
+     */
+    public int reportLeaks() {
+        if (!leakDetection) {
+            return -1;
+        }
+        synchronized (outstanding) {
+            for (Throwable trace : outstanding.values()) {
+                trace.printStackTrace();
+            }
+            return outstanding.size();
+        }
+    }
+
+    /*
+    大小等级下标，超过最大等级返回 -1
+     */
+    private static int sizeClass(int size) {
+        if (size > MAX_SIZE) {
+            return -1;
+        }
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    /*
+    无锁栈：push/pop 都是对栈顶的一次 CAS；节点每次新建，不会出现 ABA
+     */
+    private static final class TreiberStack {
+
+        private final AtomicReference<Node> top = new AtomicReference<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void push(ByteBuffer buffer, int maxSize) {
+            // size 只是近似上限，超出的缓冲区交给 GC
+            if (size.incrementAndGet() > maxSize) {
+                size.decrementAndGet();
+                return;
+            }
+            Node node = new Node(buffer);
+            Node head;
+            do {
+                head = top.get();
+                node.next = head;
+            } while (!top.compareAndSet(head, node));
+        }
+
+        ByteBuffer pop() {
+            Node head;
+            do {
+                head = top.get();
+                if (head == null) {
+                    return null;
+                }
+            } while (!top.compareAndSet(head, head.next));
+            size.decrementAndGet();
+            return head.buffer;
+        }
+    }
+
+    private static final class Node {
+        final ByteBuffer buffer;
+        Node next;
+
+        Node(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
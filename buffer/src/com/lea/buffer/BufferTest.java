@@ -118,6 +118,55 @@ public class BufferTest {
         System.out.println(b.isDirect());
     }
 
+    /*
+    组合缓冲区：消息头和消息体在两个缓冲区里，当作一个整体读取，不复制
+     */
+    @Test
+    public void test4() {
+        ByteBuffer header = ByteBuffer.allocate(6);
+        ByteBuffer body = ByteBuffer.wrap("中国迟早要重回世界第一的".getBytes());
+        // 消息头：2 字节魔数 + 4 字节消息体长度
+        header.putShort((short) 0xCAFE).putInt(body.remaining()).flip();
+        // 模拟消息头被拆在两次读取里：长度字段的最后一个字节放进另一个缓冲区
+        ByteBuffer rest = ByteBuffer.wrap(new byte[]{header.get(5)});
+        header.limit(5);
+        CompositeByteBuffer message = CompositeByteBuffer.wrap(header, rest, body);
+        System.out.println(message + " 魔数：" + Integer.toHexString(message.getShort() & 0xFFFF)
+                + " 长度：" + message.getInt());
+
+        // 只取消息体部分，仍然不复制，可以直接交给 GatheringByteChannel.write(ByteBuffer[])
+        CompositeByteBuffer payload = message.slice();
+        byte[] bytes = new byte[payload.readableBytes()];
+        payload.get(bytes);
+        System.out.println(new String(bytes) + "，组件数：" + message.nioBuffers().length);
+        message.release();
+    }
+
+    /*
+    自适应接收缓冲区：连续读满时放大，连续两次读得少才缩小
+     */
+    @Test
+    public void test5() {
+        AdaptiveRecvAllocator.Handle handle = new AdaptiveRecvAllocator(64, 1024, 64 * 1024).newHandle();
+        // 大流量：每次都读满
+        for (int i = 0; i < 3; i++) {
+            handle.reset();
+            handle.attemptedBytesRead(handle.guess());
+            handle.lastBytesRead(handle.guess());
+            System.out.println("读满 " + handle.totalBytesRead() + "，继续读：" + handle.continueReading()
+                    + "，下一次：" + handle.guess());
+            handle.readComplete();
+        }
+        // 聊天：每次只有几十字节
+        for (int i = 0; i < 6; i++) {
+            handle.reset();
+            handle.attemptedBytesRead(handle.guess());
+            handle.lastBytesRead(40);
+            System.out.println("读到 40，继续读：" + handle.continueReading() + "，下一次：" + handle.guess());
+            handle.readComplete();
+        }
+    }
+
     /*
     显示缓冲区属性
      */
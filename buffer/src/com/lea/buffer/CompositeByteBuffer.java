@@ -0,0 +1,410 @@
+package com.lea.buffer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 组合缓冲区：把多个 ByteBuffer 当作一段连续的只读数据，不复制
+ *
+ *  分散读取（ChannelTest.test4）得到的是 ByteBuffer[]，只能一个一个处理；
+ *  一条消息跨两次读取、或者由消息头 + 消息体组成时，以前只能拷贝到一个更大的缓冲区里
+ *
+ *  一、addComponent() 加入的是缓冲区 position 到 limit 之间的切片，不复制，加入后不要再修改原缓冲区的内容
+ *  二、读：绝对位置 get(index)/getInt(index)... 和相对位置 get()/getInt()...（移动 readerIndex），
+ *      跨越两个组件的 short/int/long 按大端序逐字节拼起来，其余情况直接读组件
+ *  三、slice()：共享同一段内存和同一个引用计数，不复制
+ *  四、nioBuffers()：导出为 ByteBuffer[]，直接交给 GatheringByteChannel.write(ByteBuffer[])
+ *  五、引用计数：创建时为 1，retain() 加一，release() 减一，减到 0 时 addPooledComponent() 加入的缓冲区归还 BufferPool
+ *
+ *  除引用计数外不是线程安全的
+ *
+ * @author lzc
+ * @create 2026.10.17 23:20
+ */
+public class CompositeByteBuffer {
+
+    private static final ByteBuffer[] EMPTY = new ByteBuffer[0];
+
+    // 组件，都是 position = 0 的切片
+    private ByteBuffer[] components;
+    // 每个组件在整体中的起始下标
+    private int[] offsets;
+    private int count;
+    private int capacity;
+    private int readerIndex;
+    // 上一次访问的组件，顺序读取时不必每次二分查找
+    private int lastComponent;
+    private final Resources resources;
+
+    public CompositeByteBuffer() {
+        this(new ByteBuffer[4], new int[4], 0, new Resources());
+    }
+
+    private CompositeByteBuffer(ByteBuffer[] components, int[] offsets, int count, Resources resources) {
+        this.components = components;
+        this.offsets = offsets;
+        this.count = count;
+        this.resources = resources;
+        for (int i = 0; i < count; i++) {
+            capacity += components[i].limit();
+        }
+    }
+
+    public static CompositeByteBuffer wrap(ByteBuffer... buffers) {
+        CompositeByteBuffer composite = new CompositeByteBuffer();
+        for (ByteBuffer buffer : buffers) {
+            composite.addComponent(buffer);
+        }
+        return composite;
+    }
+
+    /*
+    在末尾加入 buffer 的 position 到 limit 之间的数据，buffer 本身的 position 不变
+     */
+    public CompositeByteBuffer addComponent(ByteBuffer buffer) {
+        ensureAccessible();
+        if (!buffer.hasRemaining()) {
+            return this;
+        }
+        if (count == components.length) {
+            components = Arrays.copyOf(components, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        components[count] = buffer.slice();
+        offsets[count] = capacity;
+        count++;
+        capacity += buffer.remaining();
+        return this;
+    }
+
+    /*
+    加入从 BufferPool.DEFAULT 获取的缓冲区，引用计数减到 0 时归还
+     */
+    public CompositeByteBuffer addPooledComponent(ByteBuffer buffer) {
+        addComponent(buffer);
+        resources.pooled.add(buffer);
+        return this;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int numComponents() {
+        return count;
+    }
+
+    public int readerIndex() {
+        return readerIndex;
+    }
+
+    public CompositeByteBuffer readerIndex(int readerIndex) {
+        if (readerIndex < 0 || readerIndex > capacity) {
+            throw new IndexOutOfBoundsException("readerIndex: " + readerIndex + ", capacity: " + capacity);
+        }
+        this.readerIndex = readerIndex;
+        return this;
+    }
+
+    public int readableBytes() {
+        return capacity - readerIndex;
+    }
+
+    public boolean hasRemaining() {
+        return readerIndex < capacity;
+    }
+
+    public CompositeByteBuffer skip(int length) {
+        return readerIndex(readerIndex + length);
+    }
+
+    // ------------------------------ 绝对位置读取 ------------------------------
+
+    public byte get(int index) {
+        checkIndex(index, 1);
+        int i = componentIndex(index);
+        return components[i].get(index - offsets[i]);
+    }
+
+    public short getShort(int index) {
+        checkIndex(index, 2);
+        int i = componentIndex(index);
+        int local = index - offsets[i];
+        if (local + 2 <= components[i].limit()) {
+            return components[i].getShort(local);
+        }
+        return (short) ((get(index) & 0xFF) << 8 | get(index + 1) & 0xFF);
+    }
+
+    public int getInt(int index) {
+        checkIndex(index, 4);
+        int i = componentIndex(index);
+        int local = index - offsets[i];
+        if (local + 4 <= components[i].limit()) {
+            return components[i].getInt(local);
+        }
+        return (getShort(index) & 0xFFFF) << 16 | getShort(index + 2) & 0xFFFF;
+    }
+
+    public long getLong(int index) {
+        checkIndex(index, 8);
+        int i = componentIndex(index);
+        int local = index - offsets[i];
+        if (local + 8 <= components[i].limit()) {
+            return components[i].getLong(local);
+        }
+        return (getInt(index) & 0xFFFFFFFFL) << 32 | getInt(index + 4) & 0xFFFFFFFFL;
+    }
+
+    /*
+    从 index 开始复制 length 个字节到 dst 的 offset 处
+     */
+    public CompositeByteBuffer get(int index, byte[] dst, int offset, int length) {
+        checkIndex(index, length);
+        while (length > 0) {
+            int i = componentIndex(index);
+            int local = index - offsets[i];
+            int n = Math.min(length, components[i].limit() - local);
+            components[i].get(local, dst, offset, n);
+            index += n;
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /*
+    从 index 开始复制 dst.remaining() 个字节到 dst
+     */
+    public CompositeByteBuffer get(int index, ByteBuffer dst) {
+        int length = dst.remaining();
+        checkIndex(index, length);
+        while (length > 0) {
+            int i = componentIndex(index);
+            int local = index - offsets[i];
+            int n = Math.min(length, components[i].limit() - local);
+            dst.put(components[i].slice(local, n));
+            index += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /*
+    [from, to) 中第一个等于 value 的字节的下标，没有则返回 -1，例如查找分隔符
+     */
+    public int indexOf(int from, int to, byte value) {
+        from = Math.max(from, 0);
+        to = Math.min(to, capacity);
+        while (from < to) {
+            int i = componentIndex(from);
+            ByteBuffer component = components[i];
+            int end = Math.min(to - offsets[i], component.limit());
+            for (int local = from - offsets[i]; local < end; local++) {
+                if (component.get(local) == value) {
+                    return offsets[i] + local;
+                }
+            }
+            from = offsets[i] + end;
+        }
+        return -1;
+    }
+
+    // ------------------------------ 相对位置读取 ------------------------------
+
+    public byte get() {
+        byte value = get(checkReadable(1));
+        readerIndex += 1;
+        return value;
+    }
+
+    public short getShort() {
+        short value = getShort(checkReadable(2));
+        readerIndex += 2;
+        return value;
+    }
+
+    public int getInt() {
+        int value = getInt(checkReadable(4));
+        readerIndex += 4;
+        return value;
+    }
+
+    public long getLong() {
+        long value = getLong(checkReadable(8));
+        readerIndex += 8;
+        return value;
+    }
+
+    public CompositeByteBuffer get(byte[] dst) {
+        get(checkReadable(dst.length), dst, 0, dst.length);
+        readerIndex += dst.length;
+        return this;
+    }
+
+    public CompositeByteBuffer get(ByteBuffer dst) {
+        int length = dst.remaining();
+        get(checkReadable(length), dst);
+        readerIndex += length;
+        return this;
+    }
+
+    // ------------------------------ 切片与导出 ------------------------------
+
+    /*
+    [index, index + length) 的切片，共享内存和引用计数
+     */
+    public CompositeByteBuffer slice(int index, int length) {
+        checkIndex(index, length);
+        List<ByteBuffer> parts = new ArrayList<>();
+        forEachRegion(index, length, parts::add);
+        ByteBuffer[] sliced = parts.toArray(new ByteBuffer[Math.max(4, parts.size())]);
+        int[] sliceOffsets = new int[sliced.length];
+        int offset = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            sliceOffsets[i] = offset;
+            offset += sliced[i].limit();
+        }
+        return new CompositeByteBuffer(sliced, sliceOffsets, parts.size(), resources);
+    }
+
+    /*
+    可读部分的切片
+     */
+    public CompositeByteBuffer slice() {
+        return slice(readerIndex, readableBytes());
+    }
+
+    /*
+    可读部分导出为 ByteBuffer[]，每个元素都是独立的视图（修改它们的 position 不影响本缓冲区），
+    可以直接交给聚集写入 GatheringByteChannel.write(ByteBuffer[])
+     */
+    public ByteBuffer[] nioBuffers() {
+        return nioBuffers(readerIndex, readableBytes());
+    }
+
+    public ByteBuffer[] nioBuffers(int index, int length) {
+        checkIndex(index, length);
+        if (length == 0) {
+            return EMPTY;
+        }
+        List<ByteBuffer> parts = new ArrayList<>();
+        forEachRegion(index, length, parts::add);
+        return parts.toArray(EMPTY);
+    }
+
+    private void forEachRegion(int index, int length, Consumer<ByteBuffer> action) {
+        while (length > 0) {
+            int i = componentIndex(index);
+            int local = index - offsets[i];
+            int n = Math.min(length, components[i].limit() - local);
+            action.accept(components[i].slice(local, n));
+            index += n;
+            length -= n;
+        }
+    }
+
+    // ------------------------------ 引用计数 ------------------------------
+
+    public int refCnt() {
+        return resources.refCnt.get();
+    }
+
+    public CompositeByteBuffer retain() {
+        int refCnt;
+        do {
+            refCnt = resources.refCnt.get();
+            if (refCnt <= 0) {
+                throw new IllegalStateException("buffer already released");
+            }
+        } while (!resources.refCnt.compareAndSet(refCnt, refCnt + 1));
+        return this;
+    }
+
+    /*
+    引用计数减一，减到 0 时归还池化的组件并返回 true
+     */
+    public boolean release() {
+        int refCnt = resources.refCnt.decrementAndGet();
+        if (refCnt < 0) {
+            resources.refCnt.incrementAndGet();
+            throw new IllegalStateException("buffer already released");
+        }
+        if (refCnt > 0) {
+            return false;
+        }
+        for (ByteBuffer buffer : resources.pooled) {
+            BufferPool.DEFAULT.release(buffer);
+        }
+        resources.pooled.clear();
+        return true;
+    }
+
+    // ------------------------------ 内部 ------------------------------
+
+    /*
+    下标所在的组件：先看上次访问的组件及其下一个，否则二分查找
+     */
+    private int componentIndex(int index) {
+        int last = lastComponent;
+        if (last < count && index >= offsets[last]) {
+            if (index < offsets[last] + components[last].limit()) {
+                return last;
+            }
+            if (last + 1 < count && index < offsets[last + 1] + components[last + 1].limit()) {
+                return lastComponent = last + 1;
+            }
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return lastComponent = low;
+    }
+
+    private void checkIndex(int index, int length) {
+        ensureAccessible();
+        if (index < 0 || length < 0 || index > capacity - length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length + ", capacity: " + capacity);
+        }
+    }
+
+    private int checkReadable(int length) {
+        if (readableBytes() < length) {
+            throw new BufferUnderflowException();
+        }
+        return readerIndex;
+    }
+
+    private void ensureAccessible() {
+        if (resources.refCnt.get() <= 0) {
+            throw new IllegalStateException("buffer already released");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompositeByteBuffer[readerIndex=" + readerIndex + ", capacity=" + capacity
+                + ", components=" + count + ", refCnt=" + refCnt() + "]";
+    }
+
+    /*
+    切片之间共享的引用计数和池化缓冲区
+     */
+    private static final class Resources {
+
+        final AtomicInteger refCnt = new AtomicInteger(1);
+        final List<ByteBuffer> pooled = new ArrayList<>();
+    }
+}
@@ -1,6 +1,8 @@
 package com.lea.utils;
 
 import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /**
  * @author lzc
@@ -20,4 +22,12 @@ public class Utils {
         System.out.print(buf.capacity());
         System.out.println();
     }
+
+    /*
+        按平台默认字符集把缓冲区中剩余的数据转成字符串，不改变缓冲区的 position
+        直接缓冲区没有 array()，不能用 new String(buf.array(), 0, len)
+         */
+    public static String toString(ByteBuffer buf) {
+        return Charset.defaultCharset().decode(buf.duplicate()).toString();
+    }
 }
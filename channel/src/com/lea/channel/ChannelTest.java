@@ -1,5 +1,12 @@
 package com.lea.channel;
 
+import com.lea.channel.charset.TranscodingReadableByteChannel;
+import com.lea.channel.charset.TranscodingWritableByteChannel;
+import com.lea.channel.log.FlushPolicy;
+import com.lea.channel.log.LogConfig;
+import com.lea.channel.log.LogReader;
+import com.lea.channel.log.SegmentedLog;
+import com.lea.channel.scan.RecordScanner;
 import org.junit.Test;
 
 import java.io.FileInputStream;
@@ -14,11 +21,14 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  *  一、通道（Channel） ：用于源节点与目标节点的连接。在java NIO中负责缓冲区中数据的传输。
@@ -135,10 +145,8 @@ public class ChannelTest {
 
         // 去掉通道
 
-        // 直接对缓冲区进行数据的读写操作
-        byte[] dst = new byte[inMappedBuf.limit()];
-        inMappedBuf.get(dst);
-        outMappedBuf.put(dst);
+        // 直接对缓冲区进行数据的读写操作，两个映射缓冲区之间直接复制，不需要中间的 byte[]
+        outMappedBuf.put(inMappedBuf);
 
         inChannel.close();
         outChannel.close();
@@ -223,4 +231,93 @@ public class ChannelTest {
 //            System.out.println(entry.getKey() + "--" + entry.getValue());
 //        }
     }
+
+    /*
+    并行分块复制：按窗口映射，多个线程同时复制，支持超过 2GB 的文件
+     */
+    @Test
+    public void test6() throws IOException {
+        ParallelFileCopier copier = new ParallelFileCopier();
+        long size = copier.copy(Paths.get("test.txt"), Paths.get("testCopy6.txt"));
+        System.out.println("复制了 " + size + " 字节");
+    }
+
+    /*
+    流式转码：UTF-8 -> GBK -> UTF-8，缓冲区大小固定，任意大小的文件都不需要整块读进内存
+     */
+    @Test
+    public void test7() throws IOException {
+        Charset gbk = Charset.forName("GBK");
+        try (TranscodingReadableByteChannel inChannel = new TranscodingReadableByteChannel(
+                FileChannel.open(Paths.get("test.txt"), StandardOpenOption.READ), StandardCharsets.UTF_8, gbk);
+             FileChannel outChannel = FileChannel.open(Paths.get("testGBK7.txt"), StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(16);
+            while (inChannel.read(buf) != -1) {
+                buf.flip();
+                outChannel.write(buf);
+                buf.clear();
+            }
+        }
+
+        try (FileChannel inChannel = FileChannel.open(Paths.get("testGBK7.txt"), StandardOpenOption.READ);
+             TranscodingWritableByteChannel outChannel = new TranscodingWritableByteChannel(
+                     FileChannel.open(Paths.get("testCopy7.txt"), StandardOpenOption.WRITE,
+                             StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING),
+                     gbk, StandardCharsets.UTF_8)) {
+            // 故意用很小的缓冲区，汉字会被切开
+            ByteBuffer buf = ByteBuffer.allocate(5);
+            while (inChannel.read(buf) != -1) {
+                buf.flip();
+                outChannel.write(buf);
+                buf.clear();
+            }
+        }
+        System.out.println(new String(Files.readAllBytes(Paths.get("testCopy7.txt")), StandardCharsets.UTF_8));
+    }
+
+    /*
+    分段日志：每行一条消息追加进内存映射的段文件，再用读取器从头读出来
+     */
+    @Test
+    public void test8() throws IOException {
+        LogConfig config = new LogConfig().segmentSize(1024 * 1024).flushPolicy(FlushPolicy.everyMessages(100));
+        try (SegmentedLog log = new SegmentedLog(Paths.get("test-log"), config)) {
+            long start = log.nextOffset();
+            for (String line : Files.readAllLines(Paths.get("test.txt"), StandardCharsets.UTF_8)) {
+                log.append(StandardCharsets.UTF_8.encode(line));
+            }
+            LogReader reader = log.reader(start);
+            ByteBuffer message;
+            while ((message = reader.poll()) != null) {
+                System.out.println(reader.offset() - 1 + "：" + StandardCharsets.UTF_8.decode(message));
+            }
+        }
+    }
+
+    /*
+    并行扫描记录：回调方式统计每行的字节数，Stream 方式找出包含 "CPU" 的行，都不为每行创建 String
+     */
+    @Test
+    public void test9() throws IOException {
+        try (RecordScanner scanner = new RecordScanner(Paths.get("test.txt"))) {
+            LongAdder bytes = new LongAdder();
+            long lines = scanner.scan(record -> bytes.add(record.remaining()));
+            System.out.println(scanner.chunkCount() + " 个分块，" + lines + " 行，" + bytes.sum() + " 字节（不含换行）");
+
+            ByteBuffer cpu = StandardCharsets.US_ASCII.encode("CPU");
+            scanner.records()
+                    .filter(record -> contains(record, cpu))
+                    .forEachOrdered(record -> System.out.println(StandardCharsets.UTF_8.decode(record)));
+        }
+    }
+
+    private static boolean contains(ByteBuffer record, ByteBuffer part) {
+        for (int i = record.position(); i <= record.limit() - part.remaining(); i++) {
+            if (record.slice(i, part.remaining()).equals(part)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
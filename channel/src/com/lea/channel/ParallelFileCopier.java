@@ -0,0 +1,159 @@
+package com.lea.channel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行分块文件复制（内存映射文件）
+ *
+ *  一、把文件按固定大小切成窗口，每个窗口分别映射源文件（只读）和目标文件（读写），
+ *      直接 put(MappedByteBuffer) 复制，不经过堆上的 byte[]
+ *  二、窗口在 ForkJoinPool 上并行复制，每个任务只映射一个窗口，不受单个 MappedByteBuffer 最大 2GB 的限制；
+ *      映射占用的是页缓存而不是堆，窗口用完之后随 GC 解除映射
+ *  三、小文件映射的开销不划算，直接 transferTo
+ *  四、force 策略决定复制完的数据什么时候刷到磁盘
+ *
+ * @author lzc
+ * @create 2026.10.17 14:20
+ */
+public class ParallelFileCopier {
+
+    /*
+    刷盘策略
+     */
+    public enum ForcePolicy {
+        // 交给操作系统
+        NONE,
+        // 每个窗口复制完立即 force；不映射的小文件整个算一个窗口
+        PER_WINDOW,
+        // 全部复制完再逐个 force 各个窗口
+        ON_COMPLETE
+    }
+
+    private final ForkJoinPool pool;
+    private final long windowSize;
+    // 小于这个大小的文件直接 transferTo
+    private final long mapThreshold;
+    private final ForcePolicy forcePolicy;
+
+    public ParallelFileCopier() {
+        this(ForkJoinPool.commonPool(), 64L * 1024 * 1024, 1024L * 1024, ForcePolicy.NONE);
+    }
+
+    public ParallelFileCopier(ForkJoinPool pool, long windowSize, long mapThreshold, ForcePolicy forcePolicy) {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize: " + windowSize);
+        }
+        this.pool = pool;
+        this.windowSize = windowSize;
+        this.mapThreshold = mapThreshold;
+        this.forcePolicy = forcePolicy;
+    }
+
+    /*
+    复制文件，目标文件存在则覆盖，返回复制的字节数
+     */
+    public long copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            if (size == 0 || size < mapThreshold) {
+                transfer(in, out, size);
+            } else {
+                // 目标文件先扩展到最终大小，各个窗口才能独立映射
+                out.position(size - 1);
+                out.write(ByteBuffer.wrap(new byte[1]));
+                long windows = (size + windowSize - 1) / windowSize;
+                // ON_COMPLETE 时保留每个窗口的映射，复制完再 force：
+                // FileChannel.force() 不保证通过 MappedByteBuffer 做的修改写到磁盘
+                MappedByteBuffer[] mapped = forcePolicy == ForcePolicy.ON_COMPLETE ? new MappedByteBuffer[Math.toIntExact(windows)] : null;
+                try {
+                    pool.invoke(new CopyTask(in, out, size, 0, windows, mapped));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                if (mapped != null) {
+                    for (MappedByteBuffer dst : mapped) {
+                        dst.force();
+                    }
+                }
+                return size;
+            }
+            // 小文件只有一个"窗口"，PER_WINDOW 和 ON_COMPLETE 都在复制完时刷盘
+            if (forcePolicy != ForcePolicy.NONE) {
+                out.force(false);
+            }
+            return size;
+        }
+    }
+
+    private static void transfer(FileChannel in, FileChannel out, long size) throws IOException {
+        long position = 0;
+        while (position < size) {
+            long n = in.transferTo(position, size - position, out);
+            if (n <= 0) {
+                // 源文件在复制过程中变短，transferTo 会一直返回 0；没有变短也没有进展时同样不再重试，免得空转
+                long current = in.size();
+                if (current <= position) {
+                    throw new IOException("source shrank to " + current + " bytes while copying " + size + " bytes");
+                }
+                throw new IOException("transferTo made no progress at " + position + " of " + size + " bytes");
+            }
+            position += n;
+        }
+    }
+
+    /*
+    复制 [from, to) 之间的窗口，窗口多于一个就一分为二
+     */
+    private class CopyTask extends RecursiveAction {
+
+        private final FileChannel in;
+        private final FileChannel out;
+        private final long size;
+        private final long from;
+        private final long to;
+        // ON_COMPLETE 时按窗口下标保存目标映射，否则为 null
+        private final MappedByteBuffer[] mapped;
+
+        CopyTask(FileChannel in, FileChannel out, long size, long from, long to, MappedByteBuffer[] mapped) {
+            this.in = in;
+            this.out = out;
+            this.size = size;
+            this.from = from;
+            this.to = to;
+            this.mapped = mapped;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                long mid = (from + to) >>> 1;
+                invokeAll(new CopyTask(in, out, size, from, mid, mapped), new CopyTask(in, out, size, mid, to, mapped));
+                return;
+            }
+            long position = from * windowSize;
+            long length = Math.min(windowSize, size - position);
+            try {
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, position, length);
+                dst.put(src);
+                if (forcePolicy == ForcePolicy.PER_WINDOW) {
+                    dst.force();
+                } else if (mapped != null) {
+                    mapped[(int) from] = dst;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
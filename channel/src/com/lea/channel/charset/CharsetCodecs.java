@@ -0,0 +1,87 @@
+package com.lea.channel.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按线程缓存编码器 / 解码器
+ *
+ *  Charset.newDecoder()/newEncoder() 每次都新建对象，CharsetDecoder 本身又不是线程安全的；
+ *  这里每个线程按字符集保存几个用过的实例，借出时从本线程取，归还时 reset() 后放回本线程。
+ *  借出期间实例只属于借用方，所以有状态的字符集（如 ISO-2022-JP）跨多次调用也不会出错
+ *
+ * @author lzc
+ * @create 2026.10.17 21:00
+ */
+public final class CharsetCodecs {
+
+    // 每个线程每个字符集最多缓存几个
+    private static final int MAX_CACHED = 4;
+
+    private static final ThreadLocal<Map<Charset, ArrayDeque<CharsetDecoder>>> DECODERS =
+            ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<Charset, ArrayDeque<CharsetEncoder>>> ENCODERS =
+            ThreadLocal.withInitial(HashMap::new);
+    private static final Map<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<>();
+
+    private CharsetCodecs() {
+    }
+
+    public static CharsetDecoder borrowDecoder(Charset charset) {
+        CharsetDecoder decoder = DECODERS.get().computeIfAbsent(charset, c -> new ArrayDeque<>()).pollFirst();
+        return decoder != null ? decoder : charset.newDecoder();
+    }
+
+    public static void returnDecoder(CharsetDecoder decoder) {
+        ArrayDeque<CharsetDecoder> cache = DECODERS.get().computeIfAbsent(decoder.charset(), c -> new ArrayDeque<>());
+        if (cache.size() < MAX_CACHED) {
+            cache.offerFirst(decoder.reset());
+        }
+    }
+
+    public static CharsetEncoder borrowEncoder(Charset charset) {
+        CharsetEncoder encoder = ENCODERS.get().computeIfAbsent(charset, c -> new ArrayDeque<>()).pollFirst();
+        return encoder != null ? encoder : charset.newEncoder();
+    }
+
+    public static void returnEncoder(CharsetEncoder encoder) {
+        ArrayDeque<CharsetEncoder> cache = ENCODERS.get().computeIfAbsent(encoder.charset(), c -> new ArrayDeque<>());
+        if (cache.size() < MAX_CACHED) {
+            cache.offerFirst(encoder.reset());
+        }
+    }
+
+    /*
+    0x00 ~ 0x7F 在该字符集中是否就是 ASCII 本身（UTF-8、GBK、ISO-8859-1 是，UTF-16 不是）
+     */
+    public static boolean isAsciiCompatible(Charset charset) {
+        return ASCII_COMPATIBLE.computeIfAbsent(charset, CharsetCodecs::checkAsciiCompatible);
+    }
+
+    private static boolean checkAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] bytes = new byte[128];
+        char[] chars = new char[128];
+        for (int i = 0; i < 128; i++) {
+            bytes[i] = (byte) i;
+            chars[i] = (char) i;
+        }
+        try {
+            CharBuffer decoded = charset.newDecoder().decode(ByteBuffer.wrap(bytes));
+            ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap(chars));
+            return decoded.equals(CharBuffer.wrap(chars)) && encoded.equals(ByteBuffer.wrap(bytes));
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
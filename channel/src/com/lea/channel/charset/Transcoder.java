@@ -0,0 +1,193 @@
+package com.lea.channel.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * 流式转码：source 字符集的字节 -> 字符 -> target 字符集的字节
+ *
+ *  ChannelTest.test5() 用的 encode(CharBuffer)/decode(ByteBuffer) 每次都新建整块缓冲区，
+ *  而且要求输入是完整的；网络 / 文件按块读到的数据，多字节字符可能正好被切在两块之间
+ *
+ *  一、decode(in, chars, false)/encode(chars, out, false) 循环，按 CoderResult 处理：
+ *      UNDERFLOW：输入用完了，不完整的字符留在 in 中，等调用方补充数据后继续
+ *      OVERFLOW：输出满了，调用方把 out 写走后继续
+ *  二、中间的字符缓冲区大小固定，转码任意长度的数据内存占用不变
+ *  三、两个字符集都兼容 ASCII 时，连续的 ASCII 字节直接复制到 out，不经过字符缓冲区
+ *  四、编码器 / 解码器从 CharsetCodecs 借出，close() 时归还
+ *
+ *  不是线程安全的，一个流一个 Transcoder
+ *
+ * @author lzc
+ * @create 2026.10.17 21:10
+ */
+public class Transcoder implements AutoCloseable {
+
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+    private final CodingErrorAction action;
+    // 解码出来还没编码的字符，读模式
+    private final CharBuffer chars;
+    private final boolean asciiFastPath;
+
+    private boolean decoderEnded;
+    private boolean decoderFlushed;
+    private boolean finished;
+    private boolean closed;
+
+    public Transcoder(Charset source, Charset target) {
+        this(source, target, CodingErrorAction.REPLACE, 4096);
+    }
+
+    /*
+    action：遇到非法 / 无法映射的字符时的处理方式，REPORT 时抛出 CharacterCodingException；
+    charBufferSize：中间字符缓冲区大小
+     */
+    public Transcoder(Charset source, Charset target, CodingErrorAction action, int charBufferSize) {
+        this.decoder = CharsetCodecs.borrowDecoder(source)
+                .onMalformedInput(action)
+                .onUnmappableCharacter(action);
+        this.encoder = CharsetCodecs.borrowEncoder(target)
+                .onMalformedInput(action)
+                .onUnmappableCharacter(action);
+        this.action = action;
+        this.chars = CharBuffer.allocate(charBufferSize);
+        this.chars.flip();
+        this.asciiFastPath = CharsetCodecs.isAsciiCompatible(source) && CharsetCodecs.isAsciiCompatible(target);
+    }
+
+    /*
+    把 in 中的字节转码写入 out
+    返回 true 表示 in 已经处理完（可能剩下几个字节的不完整字符），需要补充输入；
+    返回 false 表示 out 满了，需要先把 out 中的数据取走
+     */
+    public boolean transcode(ByteBuffer in, ByteBuffer out) throws CharacterCodingException {
+        ensureOpen();
+        while (true) {
+            if (!encode(out, false)) {
+                return false;
+            }
+            if (asciiFastPath) {
+                copyAscii(in, out);
+            }
+            if (!in.hasRemaining()) {
+                return true;
+            }
+            if (!out.hasRemaining()) {
+                return false;
+            }
+            chars.compact();
+            CoderResult result = decoder.decode(in, chars, false);
+            chars.flip();
+            check(result);
+            if (result.isUnderflow() && !chars.hasRemaining()) {
+                // 剩下的不足一个字符
+                return true;
+            }
+        }
+    }
+
+    /*
+    输入结束：处理 in 中剩下的字节（不完整的字符按错误处理），冲刷解码器和编码器的内部状态
+    返回 false 表示 out 满了，取走 out 中的数据后再次调用；返回 true 表示全部完成
+     */
+    public boolean finish(ByteBuffer in, ByteBuffer out) throws CharacterCodingException {
+        ensureOpen();
+        if (finished) {
+            return true;
+        }
+        while (!decoderFlushed) {
+            if (!encode(out, false)) {
+                return false;
+            }
+            chars.compact();
+            CoderResult result;
+            if (!decoderEnded) {
+                result = decoder.decode(in, chars, true);
+                decoderEnded = result.isUnderflow();
+            } else {
+                result = decoder.flush(chars);
+                decoderFlushed = result.isUnderflow();
+            }
+            chars.flip();
+            check(result);
+        }
+        if (!encode(out, true) || encoder.flush(out).isOverflow()) {
+            return false;
+        }
+        finished = true;
+        return true;
+    }
+
+    /*
+    字符缓冲区中的字符编码到 out，返回 false 表示 out 满了
+     */
+    private boolean encode(ByteBuffer out, boolean endOfInput) throws CharacterCodingException {
+        if (!chars.hasRemaining() && !endOfInput) {
+            return true;
+        }
+        CoderResult result = encoder.encode(chars, out, endOfInput);
+        check(result);
+        return !result.isOverflow();
+    }
+
+    /*
+    ASCII 快速路径：字符缓冲区为空时，解码器不会有没处理完的字符（不完整的字节留在 in 中），
+    可以把连续的 ASCII 字节直接复制过去
+     */
+    private void copyAscii(ByteBuffer in, ByteBuffer out) {
+        if (chars.hasRemaining()) {
+            return;
+        }
+        int max = Math.min(in.remaining(), out.remaining());
+        int start = in.position();
+        int n = 0;
+        if (in.hasArray()) {
+            byte[] array = in.array();
+            int offset = in.arrayOffset() + start;
+            while (n < max && array[offset + n] >= 0) {
+                n++;
+            }
+        } else {
+            while (n < max && in.get(start + n) >= 0) {
+                n++;
+            }
+        }
+        if (n > 0) {
+            out.put(out.position(), in, start, n);
+            in.position(start + n);
+            out.position(out.position() + n);
+        }
+    }
+
+    private void check(CoderResult result) throws CharacterCodingException {
+        if (result.isError() && action == CodingErrorAction.REPORT) {
+            result.throwException();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("transcoder closed");
+        }
+    }
+
+    /*
+    归还编码器 / 解码器，重复调用无副作用
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        CharsetCodecs.returnDecoder(decoder);
+        CharsetCodecs.returnEncoder(encoder);
+    }
+}
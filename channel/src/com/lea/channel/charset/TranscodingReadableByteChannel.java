@@ -0,0 +1,91 @@
+package com.lea.channel.charset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 读取时转码：从 source 读到的是 sourceCharset 的字节，read() 得到的是 targetCharset 的字节
+ *
+ *  被切开的多字节字符留在内部缓冲区，和下一次读到的数据拼起来再解码；
+ *  source 是非阻塞通道时，没有数据可读 read() 返回 0
+ *
+ * @author lzc
+ * @create 2026.10.17 21:20
+ */
+public class TranscodingReadableByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel source;
+    private final Transcoder transcoder;
+    // 从 source 读到还没转码的字节，读模式
+    private final ByteBuffer in;
+    private boolean eof;
+    private boolean done;
+    private boolean open = true;
+
+    public TranscodingReadableByteChannel(ReadableByteChannel source, Charset sourceCharset, Charset targetCharset) {
+        this(source, new Transcoder(sourceCharset, targetCharset), 8192);
+    }
+
+    public TranscodingReadableByteChannel(ReadableByteChannel source, Transcoder transcoder, int bufferSize) {
+        this.source = source;
+        this.transcoder = transcoder;
+        this.in = ByteBuffer.allocate(bufferSize);
+        this.in.flip();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (done) {
+            return -1;
+        }
+        int start = dst.position();
+        while (dst.hasRemaining()) {
+            if (eof) {
+                done = transcoder.finish(in, dst);
+                break;
+            }
+            if (!transcoder.transcode(in, dst)) {
+                // dst 满了
+                break;
+            }
+            if (dst.position() > start) {
+                // 已经有数据了，先返回，不为了填满 dst 阻塞在 source 上
+                break;
+            }
+            in.compact();
+            int n = source.read(in);
+            in.flip();
+            if (n < 0) {
+                eof = true;
+            } else if (n == 0) {
+                break;
+            }
+        }
+        int n = dst.position() - start;
+        return n == 0 && done ? -1 : n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /*
+    关闭 source 并归还编码器 / 解码器
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        transcoder.close();
+        source.close();
+    }
+}
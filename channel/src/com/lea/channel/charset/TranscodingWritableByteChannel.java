@@ -0,0 +1,105 @@
+package com.lea.channel.charset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 写入时转码：write() 传入的是 sourceCharset 的字节，写到 target 的是 targetCharset 的字节
+ *
+ *  一、write() 总是消费掉 src 中的全部字节，末尾被切开的不完整字符暂存起来，和下一次 write() 的数据拼起来
+ *  二、转码结果先写进固定大小的缓冲区，满了才写到 target，target 应当是阻塞通道
+ *  三、close() 时处理暂存的字节、冲刷编码器状态，然后关闭 target
+ *
+ * @author lzc
+ * @create 2026.10.17 21:25
+ */
+public class TranscodingWritableByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel target;
+    private final Transcoder transcoder;
+    // 转码结果，写模式
+    private final ByteBuffer out;
+    // 上一次 write() 末尾不完整的字符，写模式
+    private final ByteBuffer carry = ByteBuffer.allocate(64);
+    private boolean open = true;
+
+    public TranscodingWritableByteChannel(WritableByteChannel target, Charset sourceCharset, Charset targetCharset) {
+        this(target, new Transcoder(sourceCharset, targetCharset), 8192);
+    }
+
+    public TranscodingWritableByteChannel(WritableByteChannel target, Transcoder transcoder, int bufferSize) {
+        this.target = target;
+        this.transcoder = transcoder;
+        this.out = ByteBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int n = src.remaining();
+        // 先逐字节补全上次剩下的字符，通常只有 1 ~ 3 个字节
+        while (carry.position() > 0 && src.hasRemaining()) {
+            carry.put(src.get());
+            carry.flip();
+            transcode(carry);
+            carry.compact();
+        }
+        transcode(src);
+        if (src.hasRemaining()) {
+            carry.put(src);
+        }
+        return n;
+    }
+
+    /*
+    把已经转码的数据写到 target（不包括暂存的不完整字符）
+     */
+    public void flush() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        drain();
+    }
+
+    private void transcode(ByteBuffer src) throws IOException {
+        while (!transcoder.transcode(src, out)) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            target.write(out);
+        }
+        out.clear();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            carry.flip();
+            while (!transcoder.finish(carry, out)) {
+                drain();
+            }
+            drain();
+        } finally {
+            transcoder.close();
+            target.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.lea.channel.log;
+
+/**
+ * 刷盘策略：写入的消息什么时候 force 到磁盘
+ *
+ *  os()：不主动刷盘，交给操作系统回写页缓存，吞吐最高，机器掉电会丢最近的数据
+ *  everyMessages(n)：每写 n 条消息刷一次，在写入线程中执行
+ *  everyMillis(t)：每隔 t 毫秒刷一次，在后台线程中执行，不阻塞写入
+ *
+ *  不管哪种策略，段写满切换和 close() 时都会刷盘
+ *
+ * @author lzc
+ * @create 2026.10.17 21:40
+ */
+public final class FlushPolicy {
+
+    public enum Mode {
+        OS,
+        MESSAGES,
+        INTERVAL
+    }
+
+    private final Mode mode;
+    private final long value;
+
+    private FlushPolicy(Mode mode, long value) {
+        this.mode = mode;
+        this.value = value;
+    }
+
+    public static FlushPolicy os() {
+        return new FlushPolicy(Mode.OS, 0);
+    }
+
+    public static FlushPolicy everyMessages(int messages) {
+        if (messages <= 0) {
+            throw new IllegalArgumentException("messages: " + messages);
+        }
+        return new FlushPolicy(Mode.MESSAGES, messages);
+    }
+
+    public static FlushPolicy everyMillis(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("millis: " + millis);
+        }
+        return new FlushPolicy(Mode.INTERVAL, millis);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /*
+    MESSAGES 时是消息条数，INTERVAL 时是毫秒数
+     */
+    public long value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.OS ? "OS" : mode + "(" + value + ")";
+    }
+}
@@ -0,0 +1,52 @@
+package com.lea.channel.log;
+
+/**
+ * 分段日志的配置
+ *
+ * @author lzc
+ * @create 2026.10.17 21:40
+ */
+public class LogConfig {
+
+    // 每个段文件的大小，创建时一次映射，写满后切换到新段
+    private int segmentSize = 64 * 1024 * 1024;
+    // 稀疏索引的间隔：每写入这么多字节记一条索引
+    private int indexInterval = 4096;
+    private FlushPolicy flushPolicy = FlushPolicy.os();
+
+    public int segmentSize() {
+        return segmentSize;
+    }
+
+    public LogConfig segmentSize(int segmentSize) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("segmentSize: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    public int indexInterval() {
+        return indexInterval;
+    }
+
+    public LogConfig indexInterval(int indexInterval) {
+        if (indexInterval <= 0) {
+            throw new IllegalArgumentException("indexInterval: " + indexInterval);
+        }
+        this.indexInterval = indexInterval;
+        return this;
+    }
+
+    public FlushPolicy flushPolicy() {
+        return flushPolicy;
+    }
+
+    public LogConfig flushPolicy(FlushPolicy flushPolicy) {
+        if (flushPolicy == null) {
+            throw new IllegalArgumentException("flushPolicy: null");
+        }
+        this.flushPolicy = flushPolicy;
+        return this;
+    }
+}
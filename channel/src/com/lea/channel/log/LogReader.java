@@ -0,0 +1,70 @@
+package com.lea.channel.log;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 日志读取器：从某个序号开始顺序读，读到末尾后继续跟随新写入的消息
+ *
+ *  不加锁：只读段中 committedPosition 之前的数据；当前段读完并且已封存，就切换到下一段
+ *  poll() 没有新消息时立即返回 null，由调用方决定自旋、休眠还是去做别的事
+ *
+ *  一个读取器只能在一个线程中使用，多个线程各自创建读取器
+ *
+ * @author lzc
+ * @create 2026.10.17 22:05
+ */
+public class LogReader {
+
+    private final SegmentedLog log;
+    private LogSegment segment;
+    private int position;
+    private long offset;
+
+    LogReader(SegmentedLog log, LogSegment segment, int position, long offset) {
+        this.log = log;
+        this.segment = segment;
+        this.position = position;
+        this.offset = offset;
+    }
+
+    /*
+    下一条消息（只读，直接指向映射的内存，不复制），没有新消息时返回 null
+     */
+    public ByteBuffer poll() {
+        while (true) {
+            if (position < segment.committedPosition()) {
+                ByteBuffer payload = segment.payload(position);
+                position += LogSegment.HEADER_SIZE + payload.remaining();
+                offset++;
+                return payload;
+            }
+            if (!segment.sealed()) {
+                return null;
+            }
+            // 看到封存之后再读一次 committedPosition，封存之前的最后一次提交一定能看到
+            if (position < segment.committedPosition()) {
+                continue;
+            }
+            LogSegment next = log.segmentAfter(segment);
+            if (next == null) {
+                return null;
+            }
+            segment = next;
+            position = 0;
+        }
+    }
+
+    /*
+    下一次 poll() 返回的消息的序号
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /*
+    还有多少条消息没有读
+     */
+    public long lag() {
+        return log.nextOffset() - offset;
+    }
+}
@@ -0,0 +1,277 @@
+package com.lea.channel.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * 日志段：一个固定大小的 .log 数据文件 + 一个 .index 稀疏索引文件，都整个映射到内存
+ *
+ *  数据文件：连续的记录 [int 长度][int CRC32C][消息体]，文件创建时预分配，未写入的部分全是 0，
+ *      长度为 0 表示后面没有记录了
+ *  索引文件：[int 段内序号][int 记录位置]，每写入 indexInterval 字节记一条，
+ *      按序号查找时先二分索引，再从索引位置往后顺序扫描
+ *
+ *  只有一个写线程；读线程不加锁，只读 committedPosition 之前的数据：
+ *  写线程先写记录、再写 volatile 的 committedPosition，读线程读到新的 committedPosition 时一定能看到记录内容
+ *
+ * @author lzc
+ * @create 2026.10.17 21:45
+ */
+class LogSegment {
+
+    static final int HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 8;
+
+    private final long baseOffset;
+    private final Path logPath;
+    private final Path indexPath;
+    private final int size;
+    private final int indexInterval;
+    private final MappedByteBuffer log;
+    private final MappedByteBuffer index;
+    private final CRC32C crc = new CRC32C();
+
+    // 已提交（对读线程可见）的数据末尾
+    private volatile int committedPosition;
+    // 已提交的消息条数
+    private volatile int count;
+    private volatile int indexEntries;
+    // 写满后不再写入，读线程读完本段就切换到下一段
+    private volatile boolean sealed;
+    private int lastIndexedPosition;
+    // 已经刷盘的数据末尾和索引条数，force() 只刷这之后的部分，每次刷盘的代价不随段的大小增长
+    private int flushedPosition;
+    private int flushedIndexEntries;
+
+    private LogSegment(Path dir, long baseOffset, int size, int indexInterval) throws IOException {
+        this.baseOffset = baseOffset;
+        this.logPath = dir.resolve(fileName(baseOffset, ".log"));
+        this.indexPath = dir.resolve(fileName(baseOffset, ".index"));
+        this.size = size;
+        this.indexInterval = indexInterval;
+        this.log = map(logPath, size);
+        this.index = map(indexPath, (size / indexInterval + 1) * INDEX_ENTRY_SIZE);
+    }
+
+    /*
+    新建一个空段
+     */
+    static LogSegment create(Path dir, long baseOffset, int size, int indexInterval) throws IOException {
+        return new LogSegment(dir, baseOffset, size, indexInterval);
+    }
+
+    /*
+    打开已有的段并恢复写入位置
+    active：是否是最后一段。最后一段可能在写到一半时崩溃，从头校验并重建索引；
+    之前的段切换时已经刷过盘，从最后一条索引往后校验即可
+     */
+    static LogSegment open(Path dir, long baseOffset, int size, int indexInterval, boolean active) throws IOException {
+        LogSegment segment = new LogSegment(dir, baseOffset, size, indexInterval);
+        segment.recover(active);
+        if (!active) {
+            segment.sealed = true;
+        }
+        return segment;
+    }
+
+    static String fileName(long baseOffset, String suffix) {
+        return String.format("%020d%s", baseOffset, suffix);
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() < size) {
+                // 稀疏文件，不会真的写 size 个 0
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            }
+            // 映射建立后关闭通道不影响映射
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /*
+    追加一条消息，本段剩余空间不够时返回 false。只能在写线程中调用
+     */
+    boolean append(ByteBuffer payload) {
+        int length = payload.remaining();
+        int position = committedPosition;
+        if ((long) position + HEADER_SIZE + length > size) {
+            return false;
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        log.put(position + HEADER_SIZE, payload, payload.position(), length);
+        log.putInt(position, length);
+        log.putInt(position + 4, (int) crc.getValue());
+        int relative = count;
+        commit(position + HEADER_SIZE + length, relative + 1);
+        if (position - lastIndexedPosition >= indexInterval) {
+            addIndexEntry(relative, position);
+        }
+        return true;
+    }
+
+    private void commit(int position, int count) {
+        this.count = count;
+        this.committedPosition = position;
+    }
+
+    private void addIndexEntry(int relative, int position) {
+        int entries = indexEntries;
+        index.putInt(entries * INDEX_ENTRY_SIZE, relative);
+        index.putInt(entries * INDEX_ENTRY_SIZE + 4, position);
+        lastIndexedPosition = position;
+        indexEntries = entries + 1;
+    }
+
+    /*
+    段内第 relative 条消息的位置；relative 等于 count() 时返回数据末尾
+     */
+    int positionOf(int relative) {
+        int low = 0;
+        int high = indexEntries - 1;
+        int position = 0;
+        int current = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = index.getInt(mid * INDEX_ENTRY_SIZE);
+            if (entry <= relative) {
+                current = entry;
+                position = index.getInt(mid * INDEX_ENTRY_SIZE + 4);
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        while (current < relative) {
+            position += HEADER_SIZE + log.getInt(position);
+            current++;
+        }
+        return position;
+    }
+
+    /*
+    position 处记录的消息体，只读，不复制
+     */
+    ByteBuffer payload(int position) {
+        return log.slice(position + HEADER_SIZE, log.getInt(position)).asReadOnlyBuffer();
+    }
+
+    /*
+    逐条校验记录（长度、CRC），第一条无效记录的位置就是新的写入位置
+    full：从头校验并重建索引；否则从最后一条索引开始校验
+     */
+    private void recover(boolean full) {
+        int position = 0;
+        int relative = 0;
+        if (full) {
+            indexEntries = 0;
+            lastIndexedPosition = 0;
+        } else {
+            int entries = 0;
+            // 段内序号 0 不记索引，第一条索引的位置一定大于 0
+            while (entries < index.capacity() / INDEX_ENTRY_SIZE && index.getInt(entries * INDEX_ENTRY_SIZE + 4) > 0) {
+                entries++;
+            }
+            indexEntries = entries;
+            if (entries > 0) {
+                relative = index.getInt((entries - 1) * INDEX_ENTRY_SIZE);
+                position = index.getInt((entries - 1) * INDEX_ENTRY_SIZE + 4);
+                lastIndexedPosition = position;
+                if (!valid(position)) {
+                    // 索引比数据新，不可信，退回到全量校验
+                    recover(true);
+                    return;
+                }
+            }
+        }
+        while (valid(position)) {
+            if (full && position - lastIndexedPosition >= indexInterval) {
+                addIndexEntry(relative, position);
+            }
+            position += HEADER_SIZE + log.getInt(position);
+            relative++;
+        }
+        if (full) {
+            // 清掉旧的索引项
+            for (int i = indexEntries * INDEX_ENTRY_SIZE; i < index.capacity(); i += INDEX_ENTRY_SIZE) {
+                index.putLong(i, 0);
+            }
+            // force() 只刷已提交的索引项，清掉的部分在这里刷盘
+            index.force();
+        }
+        if (position + HEADER_SIZE <= size && log.getInt(position) != 0) {
+            // 写到一半的记录，清零，免得以后被当成有效数据
+            byte[] zeros = new byte[4096];
+            for (int i = position; i < size; i += zeros.length) {
+                log.put(i, zeros, 0, Math.min(zeros.length, size - i));
+            }
+            // 同样在提交位置之后，force() 不会刷到
+            log.force(position, size - position);
+        }
+        commit(position, relative);
+    }
+
+    private boolean valid(int position) {
+        if (position + HEADER_SIZE > size) {
+            return false;
+        }
+        int length = log.getInt(position);
+        if (length <= 0 || length > size - position - HEADER_SIZE) {
+            return false;
+        }
+        crc.reset();
+        crc.update(log.slice(position + HEADER_SIZE, length));
+        return (int) crc.getValue() == log.getInt(position + 4);
+    }
+
+    /*
+    刷盘上次 force() 之后提交的数据和索引；写线程和定时刷盘线程都会调用
+     */
+    synchronized void force() {
+        int position = committedPosition;
+        if (position > flushedPosition) {
+            log.force(flushedPosition, position - flushedPosition);
+            flushedPosition = position;
+        }
+        int entries = indexEntries;
+        if (entries > flushedIndexEntries) {
+            index.force(flushedIndexEntries * INDEX_ENTRY_SIZE, (entries - flushedIndexEntries) * INDEX_ENTRY_SIZE);
+            flushedIndexEntries = entries;
+        }
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    boolean sealed() {
+        return sealed;
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    int committedPosition() {
+        return committedPosition;
+    }
+
+    int count() {
+        return count;
+    }
+
+    Path logPath() {
+        return logPath;
+    }
+
+    Path indexPath() {
+        return indexPath;
+    }
+}
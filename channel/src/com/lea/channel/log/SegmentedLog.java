@@ -0,0 +1,198 @@
+package com.lea.channel.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 分段、只追加的消息日志（内存映射文件）
+ *
+ *  服务端收到的数据以前只能打印，或者用 FileChannel.write() 写进一个文件，每条消息一次系统调用
+ *
+ *  一、日志由多个固定大小的段组成，段文件名是段内第一条消息的序号（offset），
+ *      每个段整个映射到内存（同 ChannelTest.test2()），追加消息就是往 MappedByteBuffer 里 put，没有系统调用
+ *  二、段写满后刷盘、封存，新建下一个段
+ *  三、刷盘策略见 FlushPolicy
+ *  四、读取：reader(offset) 从任意位置开始读，读到末尾后继续跟随新写入的消息，读线程之间、读写之间都不加锁
+ *  五、重新打开时校验最后一段的记录，崩溃时写到一半的消息被丢弃
+ *
+ *  append() 可以多线程调用（内部加锁串行写入）
+ *
+ * @author lzc
+ * @create 2026.10.17 22:00
+ */
+public final class SegmentedLog implements Closeable {
+
+    private final Path dir;
+    private final LogConfig config;
+    // 所有段，按起始序号排序，读线程据此找到下一段
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService flusher;
+
+    private volatile LogSegment active;
+    // 下一条消息的序号
+    private volatile long nextOffset;
+    // 上次刷盘之后写入的消息条数
+    private int unflushed;
+    private boolean closed;
+
+    public SegmentedLog(Path dir) throws IOException {
+        this(dir, new LogConfig());
+    }
+
+    public SegmentedLog(Path dir, LogConfig config) throws IOException {
+        this.dir = dir;
+        this.config = config;
+        Files.createDirectories(dir);
+        List<Long> baseOffsets = listSegments(dir);
+        if (baseOffsets.isEmpty()) {
+            baseOffsets.add(0L);
+        }
+        for (int i = 0; i < baseOffsets.size(); i++) {
+            long baseOffset = baseOffsets.get(i);
+            LogSegment segment = LogSegment.open(dir, baseOffset, config.segmentSize(), config.indexInterval(),
+                    i == baseOffsets.size() - 1);
+            segments.put(baseOffset, segment);
+        }
+        active = segments.lastEntry().getValue();
+        nextOffset = active.baseOffset() + active.count();
+        if (config.flushPolicy().mode() == FlushPolicy.Mode.INTERVAL) {
+            long millis = config.flushPolicy().value();
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "log-flusher-" + dir.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    private static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> baseOffsets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".log"))
+                    .forEach(name -> baseOffsets.add(Long.parseLong(name.substring(0, name.length() - 4))));
+        }
+        Collections.sort(baseOffsets);
+        return baseOffsets;
+    }
+
+    /*
+    追加一条消息（position 到 limit 之间的字节），返回它的序号。方法返回后 payload 可以立即复用
+     */
+    public synchronized long append(ByteBuffer payload) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("log closed");
+        }
+        int length = payload.remaining();
+        if (length == 0 || length > config.segmentSize() - LogSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("message size: " + length);
+        }
+        if (!active.append(payload)) {
+            roll();
+            active.append(payload);
+        }
+        payload.position(payload.limit());
+        long offset = nextOffset;
+        nextOffset = offset + 1;
+        if (config.flushPolicy().mode() == FlushPolicy.Mode.MESSAGES && ++unflushed >= config.flushPolicy().value()) {
+            active.force();
+            unflushed = 0;
+        }
+        return offset;
+    }
+
+    /*
+    当前段写满：刷盘、封存，切换到新段。
+    新段先放进 segments 再封存旧段，读线程看到旧段封存时一定能找到新段
+     */
+    private void roll() throws IOException {
+        LogSegment old = active;
+        old.force();
+        LogSegment segment = LogSegment.create(dir, nextOffset, config.segmentSize(), config.indexInterval());
+        segments.put(segment.baseOffset(), segment);
+        active = segment;
+        old.seal();
+        unflushed = 0;
+    }
+
+    /*
+    把当前段已写入的数据刷到磁盘
+     */
+    public void flush() {
+        active.force();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+    从 offset 开始读的读取器，offset 等于 nextOffset() 时只读之后新写入的消息
+     */
+    public LogReader reader(long offset) {
+        if (offset < startOffset() || offset > nextOffset) {
+            throw new IllegalArgumentException("offset " + offset + " out of range [" + startOffset() + ", "
+                    + nextOffset + "]");
+        }
+        LogSegment segment = segments.floorEntry(offset).getValue();
+        return new LogReader(this, segment, segment.positionOf((int) (offset - segment.baseOffset())), offset);
+    }
+
+    LogSegment segmentAfter(LogSegment segment) {
+        Map.Entry<Long, LogSegment> next = segments.higherEntry(segment.baseOffset());
+        return next == null ? null : next.getValue();
+    }
+
+    /*
+    最早一条消息的序号
+     */
+    public long startOffset() {
+        return segments.firstKey();
+    }
+
+    /*
+    下一条消息的序号，也就是已写入的消息总数
+     */
+    public long nextOffset() {
+        return nextOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        active.force();
+    }
+}
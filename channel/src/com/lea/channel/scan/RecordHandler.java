@@ -0,0 +1,20 @@
+package com.lea.channel.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * RecordScanner.scan() 的记录回调，在 ForkJoinPool 的多个线程中并发调用，实现类必须是线程安全的
+ *
+ * @author lzc
+ * @create 2026.10.18 02:00
+ */
+@FunctionalInterface
+public interface RecordHandler {
+
+    /*
+    record 的 position ~ limit 是一条记录（不含分隔符），直接指向映射的内存，没有拷贝。
+    record 只在回调期间有效，同一个分块的下一条记录会复用它；需要保存就 slice() 或者拷贝出来
+     */
+    void record(ByteBuffer record) throws IOException;
+}
@@ -0,0 +1,325 @@
+package com.lea.channel.scan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 并行扫描内存映射文件中的记录（默认按行）
+ *
+ *  一、打开时把文件切成分块，分块的边界从名义大小处向后找到下一个分隔符，所以每条记录完整地落在一个分块里；
+ *      找边界只读少量字节，不需要扫描整个文件
+ *  二、每个分块单独映射一个窗口，不受单个 MappedByteBuffer 最大 2GB 的限制，
+ *      窗口用完之后随 GC 解除映射（同 ParallelFileCopier）
+ *  三、分块内查找分隔符一次比较 8 个字节（SWAR），记录以指向映射内存的 ByteBuffer 交给调用方，不拷贝、不创建 String
+ *  四、两种用法：
+ *      scan(handler)：分块在 ForkJoinPool 上并行处理，每个分块只复用一个 ByteBuffer 视图，每条记录没有任何分配
+ *      records()：并行 Stream，每条记录是一个独立的只读 slice()，可以保存下来，适合 filter / map / collect
+ *
+ *  分隔符是单个字节；按 '\n' 分行时 Windows 文件行尾的 '\r' 留在记录里。文件最后一条记录后面没有分隔符也会返回，
+ *  有分隔符时不会多出一条空记录。扫描期间文件不能被截断，否则访问映射会出错（InternalError）
+ *
+ * @author lzc
+ * @create 2026.10.18 02:00
+ */
+public class RecordScanner implements Closeable {
+
+    // 手动指定的分块大小下限：每个分块是一个映射，映射在 GC 时才解除，分块太小会超过 vm.max_map_count
+    private static final long MIN_EXPLICIT_CHUNK = 64 * 1024;
+    // 自动分块大小的范围
+    private static final long MIN_CHUNK = 1024 * 1024;
+    private static final long MAX_CHUNK = 64L * 1024 * 1024;
+    // 一个分块（包括向后找分隔符延长的部分）必须能映射成一个 MappedByteBuffer
+    private static final long MAX_WINDOW = Integer.MAX_VALUE;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private final FileChannel channel;
+    private final ForkJoinPool pool;
+    private final byte delimiter;
+    // 8 个字节都是分隔符
+    private final long pattern;
+    private final long size;
+    // 第 i 个分块是 [bounds[i], bounds[i + 1])
+    private final long[] bounds;
+
+    public RecordScanner(Path path) throws IOException {
+        this(path, (byte) '\n', ForkJoinPool.commonPool(), 0);
+    }
+
+    /*
+    chunkSize 是分块的名义大小（不小于 64KB），0 表示按文件大小和并行度自动选择
+     */
+    public RecordScanner(Path path, byte delimiter, ForkJoinPool pool, long chunkSize) throws IOException {
+        if (chunkSize != 0 && (chunkSize < MIN_EXPLICIT_CHUNK || chunkSize > MAX_WINDOW)) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.pool = pool;
+        this.delimiter = delimiter;
+        this.pattern = ONES * (delimiter & 0xFF);
+        try {
+            this.size = channel.size();
+            if (chunkSize == 0) {
+                // 分块数是并行度的几倍，线程之间可以互相窃取，快慢不均时不会只剩一个线程在干活
+                chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (pool.getParallelism() * 4L)));
+            }
+            this.bounds = split(chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long[] split(long chunkSize) throws IOException {
+        long[] result = new long[16];
+        int count = 0;
+        long start = 0;
+        result[count++] = 0;
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        while (start < size) {
+            long end = start + chunkSize;
+            end = end >= size ? size : nextBoundary(end - 1, probe);
+            if (end - start > MAX_WINDOW) {
+                throw new IOException("record at " + start + " longer than " + MAX_WINDOW + " bytes");
+            }
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2);
+            }
+            result[count++] = end;
+            start = end;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /*
+    从 position 开始的第一个分隔符之后的位置，没有分隔符时是文件末尾
+     */
+    private long nextBoundary(long position, ByteBuffer probe) throws IOException {
+        while (position < size) {
+            probe.clear();
+            int n = channel.read(probe, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == delimiter) {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int chunkCount() {
+        return bounds.length - 1;
+    }
+
+    // ------------------------------ 回调 ------------------------------
+
+    /*
+    在 ForkJoinPool 上并行扫描所有记录，返回记录数；handler 抛出的 IOException 原样抛出
+     */
+    public long scan(RecordHandler handler) throws IOException {
+        if (chunkCount() == 0) {
+            return 0;
+        }
+        try {
+            return pool.invoke(new ScanTask(handler, 0, chunkCount()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long scanChunk(int chunk, RecordHandler handler) throws IOException {
+        ByteBuffer window = map(chunk);
+        // 视图只有一个，每条记录只移动 position / limit
+        ByteBuffer record = window.duplicate();
+        int end = window.limit();
+        int from = 0;
+        long count = 0;
+        while (from < end) {
+            int at = indexOf(window, from, end);
+            int recordEnd = at < 0 ? end : at;
+            record.limit(recordEnd).position(from);
+            handler.record(record);
+            count++;
+            from = recordEnd + 1;
+        }
+        return count;
+    }
+
+    /*
+    扫描 [from, to) 之间的分块，分块多于一个就一分为二
+     */
+    private class ScanTask extends RecursiveTask<Long> {
+
+        private final RecordHandler handler;
+        private final int from;
+        private final int to;
+
+        ScanTask(RecordHandler handler, int from, int to) {
+            this.handler = handler;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ScanTask right = new ScanTask(handler, mid, to);
+                right.fork();
+                long left = new ScanTask(handler, from, mid).compute();
+                return left + right.join();
+            }
+            try {
+                return scanChunk(from, handler);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // ------------------------------ Stream ------------------------------
+
+    /*
+    所有记录的并行 Stream，每条记录是映射内存的只读 slice()。
+    Stream 在调用终结操作的线程所在的 ForkJoinPool 上执行（默认是公共池），
+    要用构造时传入的池就在 pool.submit(() -> scanner.records()...) 中调用
+     */
+    public Stream<ByteBuffer> records() {
+        return StreamSupport.stream(new RecordSpliterator(0, chunkCount()), true);
+    }
+
+    /*
+    按分块拆分：还没开始的分块多于一个时拆出后一半，每个分块内顺序返回记录
+     */
+    private class RecordSpliterator implements Spliterator<ByteBuffer> {
+
+        // 下一个还没映射的分块
+        private int next;
+        private final int to;
+        // 正在扫描的分块和其中下一条记录的位置
+        private ByteBuffer window;
+        private int from;
+
+        RecordSpliterator(int next, int to) {
+            this.next = next;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+            while (window == null || from >= window.limit()) {
+                if (next >= to) {
+                    window = null;
+                    return false;
+                }
+                try {
+                    window = map(next++);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                from = 0;
+            }
+            int end = window.limit();
+            int at = indexOf(window, from, end);
+            int recordEnd = at < 0 ? end : at;
+            ByteBuffer record = window.slice(from, recordEnd - from);
+            from = recordEnd + 1;
+            action.accept(record);
+            return true;
+        }
+
+        @Override
+        public Spliterator<ByteBuffer> trySplit() {
+            if (to - next < 2) {
+                return null;
+            }
+            int mid = (next + to) >>> 1;
+            RecordSpliterator prefix = new RecordSpliterator(next, mid);
+            // 当前正在扫描的分块留在前一半
+            prefix.window = window;
+            prefix.from = from;
+            window = null;
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // 记录数未知，用剩余字节数估计，只用于决定是否继续拆分
+            long remaining = bounds[to] - bounds[next];
+            if (window != null) {
+                remaining += window.limit() - from;
+            }
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    // ------------------------------ 公共 ------------------------------
+
+    /*
+    映射一个分块，只读，小端字节序（indexOf() 依赖）
+     */
+    private ByteBuffer map(int chunk) throws IOException {
+        long position = bounds[chunk];
+        long length = bounds[chunk + 1] - position;
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /*
+    [from, to) 中第一个分隔符的位置，没有返回 -1。
+    一次读 8 个字节，与 8 个分隔符异或后，等于分隔符的字节变成 0：
+    (v - 0x01..01) & ~v & 0x80..80 在 v 的 0 字节处置最高位。借位只会影响更高位的字节，
+    小端字节序下低位是前面的字节，所以最低的置位就是第一个分隔符
+     */
+    private int indexOf(ByteBuffer window, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long v = window.getLong(i) ^ pattern;
+            long found = (v - ONES) & ~v & HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (window.get(i) == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+    关闭文件通道；已经映射的分块（包括 records() 返回的记录）在 GC 回收之前仍然有效
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
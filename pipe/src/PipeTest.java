@@ -3,6 +3,8 @@ import org.junit.Test;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 
 /**
  * 通道：单向数据传输
@@ -32,4 +34,43 @@ public class PipeTest {
         sourceChannel.close();
         sinkChannel.close();
     }
+
+    /*
+    用管道唤醒选择器：SourceChannel 注册到 Selector 上，其他线程往 SinkChannel 写一个字节，
+    阻塞在 select() 上的线程就会返回。EventLoop 的 WakeupMode.PIPE 就是这样实现的
+     */
+    @Test
+    public void test2() throws Exception {
+        Pipe pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        Selector selector = Selector.open();
+        pipe.source().register(selector, SelectionKey.OP_READ);
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 3; i++) {
+                    Thread.sleep(500);
+                    pipe.sink().write(ByteBuffer.wrap(new byte[]{1}));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        producer.start();
+
+        ByteBuffer drain = ByteBuffer.allocate(64);
+        for (int i = 0; i < 3; i++) {
+            long start = System.currentTimeMillis();
+            selector.select();
+            selector.selectedKeys().clear();
+            // 读空管道，否则下一次 select() 会立即返回
+            drain.clear();
+            pipe.source().read(drain);
+            System.out.println("被唤醒，阻塞了 " + (System.currentTimeMillis() - start) + " ms");
+        }
+        producer.join();
+        selector.close();
+        pipe.source().close();
+        pipe.sink().close();
+    }
 }
@@ -1,15 +1,14 @@
 package com.lea.select;
 
+import com.lea.select.file.FileReceiver;
+import com.lea.select.file.FileSender;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 
 /**
  * 一、使用NIO完成网络通信的三个核心
@@ -35,22 +34,14 @@ public class BlockingNIO {
         // 1.获取通道
         SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", 9898));
 
-        // 2.创建读入文件通道
-        FileChannel fileChannel = FileChannel.open(Paths.get("微信图片_20191104133859.jpg"), StandardOpenOption.READ);
+        // 2.创建文件发送器
+        FileSender sender = new FileSender(Paths.get("微信图片_20191104133859.jpg"));
 
-        // 3. 创建缓冲区
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        // 3.文件通道通过 transferTo 直接写入socket通道，不经过缓冲区
+        sender.send(socketChannel);
 
-        // 将文件从文件通道中读入缓冲区，然后写入socket通道中
-        while ((fileChannel.read(buffer))  != -1) {
-            // 将缓冲区position 指针重置，进入读模式
-            buffer.flip();
-            socketChannel.write(buffer);
-            buffer.clear();
-        }
-
-        // 5. 关闭资源
-        fileChannel.close();
+        // 4. 关闭资源
+        sender.close();
         socketChannel.close();
     }
 
@@ -65,20 +56,14 @@ public class BlockingNIO {
         // 4.获取客户端连接的Socket通道
         SocketChannel socketChannel = ssChannel.accept();
         System.out.println("客户端连接进来了------------------->");
-        // 3.创建写入文件通道
-        FileChannel fileChannel = FileChannel.open(Paths.get("copyPic.jpg"), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
-        // 5.分配缓冲区
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        // 写入文件
-        while ((socketChannel.read(buffer)) != -1) {
-            buffer.flip();
-            fileChannel.write(buffer);
-            buffer.clear();
-        }
+        // 3.创建文件接收器
+        FileReceiver receiver = new FileReceiver(Paths.get("copyPic.jpg"));
+        // 5.socket通道中的数据通过 transferFrom 写入文件
+        receiver.receive(socketChannel);
         System.out.println("客户端信息传输完成------------------->");
         // 关闭通道
         socketChannel.close();
-        fileChannel.close();
+        receiver.close();
         ssChannel.close();
 
     }
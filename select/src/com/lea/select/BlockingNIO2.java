@@ -1,16 +1,24 @@
 package com.lea.select;
 
+import com.lea.buffer.AdaptiveRecvAllocator;
+import com.lea.buffer.BufferPool;
+import com.lea.select.async.AsyncConnection;
+import com.lea.select.async.AsyncFileReceiver;
+import com.lea.select.async.AsyncServer;
+import com.lea.select.blocking.VirtualThreadServer;
+import com.lea.select.file.FileReceiver;
+import com.lea.select.file.FileSender;
+import com.lea.select.file.MappedFileCache;
+import com.lea.utils.Utils;
 import org.junit.Test;
-import sun.nio.ByteBuffered;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author lzc
@@ -22,28 +30,23 @@ public class BlockingNIO2 {
     @Test
     public void client() throws IOException {
         SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", 9898));
-        FileChannel fileChannel = FileChannel.open(Paths.get("微信图片_20191104133859.jpg"), StandardOpenOption.READ);
-
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        while ((fileChannel.read(buffer)) != -1) {
-            buffer.flip();
-            socketChannel.write(buffer);
-            buffer.clear();
-        }
+        FileSender sender = new FileSender(Paths.get("微信图片_20191104133859.jpg"));
+        sender.send(socketChannel);
 
         // shutdownOutput 停止输出数据
         // 告诉服务器，客户端发送数据完毕了
         socketChannel.shutdownOutput();
 
         // 接受服务端返回的消息
-        int len;
-        while ((len = socketChannel.read(buffer)) != -1) {
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire(1024);
+        while (socketChannel.read(buffer) != -1) {
             buffer.flip();
-            System.out.println(new String(buffer.array(), 0, len));
+            System.out.println(Utils.toString(buffer));
             buffer.clear();
         }
 
-        fileChannel.close();
+        BufferPool.DEFAULT.release(buffer);
+        sender.close();
         socketChannel.close();
     }
 
@@ -54,20 +57,107 @@ public class BlockingNIO2 {
         ssChannel.bind(new InetSocketAddress(9898));
 
         SocketChannel socketChannel = ssChannel.accept();
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        FileChannel fileChannel = FileChannel.open(Paths.get("copyPic2.jpg"), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
-        while ((socketChannel.read(buffer)) != -1) {
-            buffer.flip();
-            fileChannel.write(buffer);
-            buffer.clear();
-        }
+        FileReceiver receiver = new FileReceiver(Paths.get("copyPic2.jpg"));
+        receiver.receive(socketChannel);
 
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire(1024);
         buffer.put("服务端接收数据成功".getBytes());
         buffer.flip();
         socketChannel.write(buffer);
 
+        BufferPool.DEFAULT.release(buffer);
         socketChannel.close();
-        fileChannel.close();
+        receiver.close();
         ssChannel.close();
     }
+
+    /*
+    虚拟线程服务端：循环接收连接，每个连接一个虚拟线程，处理器按阻塞方式回显数据；
+    与 NONBlocking.echoServer() 是同样的负载，可以用 LoadGenerator --mode=echo 对比
+     */
+    @Test
+    public void virtualThreadServer() throws Exception {
+        AdaptiveRecvAllocator recvAllocator = new AdaptiveRecvAllocator();
+        VirtualThreadServer server = new VirtualThreadServer(9898, socketChannel -> {
+            // 缓冲区大小跟着这个连接每次读到的数据量变化，大小变了才换一个缓冲区
+            AdaptiveRecvAllocator.Handle recvHandle = recvAllocator.newHandle();
+            int size = recvHandle.guess();
+            ByteBuffer buffer = BufferPool.DEFAULT.acquire(size);
+            try {
+                while (true) {
+                    recvHandle.reset();
+                    recvHandle.attemptedBytesRead(size);
+                    int len = socketChannel.read(buffer);
+                    recvHandle.lastBytesRead(len);
+                    recvHandle.readComplete();
+                    if (len < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        socketChannel.write(buffer);
+                    }
+                    if (recvHandle.guess() != size) {
+                        size = recvHandle.guess();
+                        BufferPool.DEFAULT.release(buffer);
+                        buffer = BufferPool.DEFAULT.acquire(size);
+                    }
+                    buffer.clear().limit(size);
+                }
+            } finally {
+                BufferPool.DEFAULT.release(buffer);
+            }
+        });
+        server.start();
+        server.join();
+    }
+
+    /*
+    异步服务端：AsynchronousServerSocketChannel，读写完成后在线程组中回调；
+    与 virtualThreadServer()、NONBlocking.echoServer() 同样的回显负载，可以用 LoadGenerator --mode=echo 对比
+     */
+    @Test
+    public void asyncServer() throws Exception {
+        AsyncServer server = new AsyncServer(9898, () -> (connection, buffer) -> {
+            connection.write(buffer);
+            return null;
+        });
+        server.start();
+        server.join();
+    }
+
+    /*
+    异步接收文件：配合 client() 使用，每个连接保存为一个文件，socket 读到的数据异步写入磁盘，
+    网络线程不等待磁盘；接收完回复客户端，写完后关闭连接
+     */
+    @Test
+    public void asyncFileServer() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        AsyncServer server = new AsyncServer(9898, () ->
+                new AsyncFileReceiver(Paths.get("copyPic2-" + count.incrementAndGet() + ".jpg")) {
+                    @Override
+                    protected void received(AsyncConnection connection, long size) throws IOException {
+                        connection.write(ByteBuffer.wrap("服务端接收数据成功".getBytes()));
+                        connection.closeAfterFlush();
+                    }
+                });
+        server.start();
+        server.join();
+    }
+
+    /*
+    热点文件服务端：每个连接都发送同一张图片，文件只映射一次，之后的发送直接从映射的内存写 socket；
+    每个连接拿到自己的只读视图，文件修改后自动重新映射。客户端用 FileReceiver 接收
+     */
+    @Test
+    public void cachedFileServer() throws Exception {
+        MappedFileCache cache = new MappedFileCache(256 * 1024 * 1024);
+        VirtualThreadServer server = new VirtualThreadServer(9898, socketChannel -> {
+            try (FileSender sender = cache.sender(Paths.get("微信图片_20191104133859.jpg"))) {
+                sender.send(socketChannel);
+            }
+        });
+        server.start();
+        server.join();
+    }
 }
@@ -1,5 +1,23 @@
 package com.lea.select;
 
+import com.lea.buffer.AdaptiveRecvAllocator;
+import com.lea.buffer.BufferPool;
+import com.lea.select.codec.LengthFieldFrameDecoder;
+import com.lea.select.file.FileReceiver;
+import com.lea.select.file.FileSender;
+import com.lea.select.metrics.BufferPoolMetrics;
+import com.lea.select.metrics.MetricsEndpoint;
+import com.lea.select.metrics.ReactorMetrics;
+import com.lea.select.pool.ChannelPool;
+import com.lea.select.pool.PoolConfig;
+import com.lea.select.pool.PooledChannel;
+import com.lea.select.reactor.ChannelHandler;
+import com.lea.select.reactor.Connection;
+import com.lea.select.reactor.ReactorConfig;
+import com.lea.select.reactor.ReactorServer;
+import com.lea.select.rpc.RpcClient;
+import com.lea.select.rpc.RpcServer;
+import com.lea.utils.Utils;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -11,10 +29,17 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.Iterator;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 一、使用NIO完成网络通信的三个核心
@@ -40,8 +65,11 @@ public class NONBlocking {
         // 2.切换非阻塞模式
         socketChannel.configureBlocking(false);
 
-        // 3.分配指定大小的缓冲区
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        // 3.从缓冲区池中获取指定大小的缓冲区
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire(1024);
+        // 4.写不进去的时候用选择器等待写就绪
+        Selector selector = Selector.open();
+        socketChannel.register(selector, SelectionKey.OP_WRITE);
 
         Scanner sc = new Scanner(System.in);
         while (sc.hasNextLine()) {
@@ -52,12 +80,17 @@ public class NONBlocking {
             // 发送数据
             buffer.put((LocalDateTime.now() + "\n" + s).getBytes());
             buffer.flip();
-            socketChannel.write(buffer);
+            // 非阻塞通道一次不一定写得完，没写完就等待写就绪后继续写
+            while (buffer.hasRemaining()) {
+                if (socketChannel.write(buffer) == 0) {
+                    selector.select();
+                    selector.selectedKeys().clear();
+                }
+            }
             buffer.clear();
         }
-
-
-
+        selector.close();
+        BufferPool.DEFAULT.release(buffer);
     }
 
     @Test
@@ -70,6 +103,7 @@ public class NONBlocking {
         serverSocketChannel.bind(new InetSocketAddress(9898));
         // 4.获取选择器
         Selector selector = Selector.open();
+        AdaptiveRecvAllocator recvAllocator = new AdaptiveRecvAllocator();
          /*
             SelectionKey:表示SelectableChannel和Select之间的注册关系
          */
@@ -91,24 +125,299 @@ public class NONBlocking {
                     // 11.切换非阻塞模式
                     socketChannel.configureBlocking(false);
                     // 12. 将通道注册到选择器上
-                    socketChannel.register(selector, SelectionKey.OP_READ);
+                    // 每个连接附带一个 Handle，记录这个连接下一次读用多大的缓冲区
+                    socketChannel.register(selector, SelectionKey.OP_READ, recvAllocator.newHandle());
                 } else if (sk.isReadable()) {
                     // 13.获取当前选择器上“读就绪”状态的通道
                     SocketChannel socketChannel = (SocketChannel) sk.channel();
+                    AdaptiveRecvAllocator.Handle recvHandle = (AdaptiveRecvAllocator.Handle) sk.attachment();
 
-                    // 14、创建缓冲区，读取数据
-                    ByteBuffer buffer = ByteBuffer.allocate(1024);
-                    int len;
-                    while ((len = socketChannel.read(buffer)) > 0) {
-                        buffer.flip();
-                        System.out.println(new String(buffer.array(), 0, len));
-                        buffer.clear();
+                    // 14、按连接最近的读取量从缓冲区池获取缓冲区，读取数据，用完归还；
+                    // 没读满缓冲区说明已经读空，不再多调用一次返回 0 的 read()
+                    int len = 0;
+                    recvHandle.reset();
+                    try {
+                        do {
+                            ByteBuffer buffer = recvHandle.allocate(BufferPool.DEFAULT);
+                            try {
+                                len = socketChannel.read(buffer);
+                                recvHandle.lastBytesRead(len);
+                                if (len > 0) {
+                                    buffer.flip();
+                                    System.out.println(Utils.toString(buffer));
+                                }
+                            } finally {
+                                BufferPool.DEFAULT.release(buffer);
+                            }
+                        } while (recvHandle.continueReading());
+                    } catch (IOException e) {
+                        // 连接被重置
+                        len = -1;
+                    } finally {
+                        recvHandle.readComplete();
+                    }
+                    // 读到 -1 说明客户端已经关闭，必须关闭通道（同时取消选择键），
+                    // 否则这个通道会一直处于读就绪状态，文件描述符也不会释放
+                    if (len < 0) {
+                        sk.cancel();
+                        socketChannel.close();
                     }
-//                    socketChannel.close();
                 }
                 // 15. 取消选择键 SelectionKey
                 it.remove();
             }
         }
     }
+
+    /*
+    主从 Reactor 版本的服务端：一个 boss 线程接收连接，多个 worker 线程读取数据
+     */
+    @Test
+    public void reactorServer() throws Exception {
+        // 60 秒没有收发数据的连接由时间轮检查出来并关闭
+        ReactorConfig config = new ReactorConfig().idleTimeoutMillis(60_000);
+        ReactorServer server = new ReactorServer(new InetSocketAddress(9898), config, () -> (connection, buffer) ->
+                System.out.println(Utils.toString(buffer)));
+        server.start();
+        server.join();
+    }
+
+    /*
+    推送服务端：业务线程每秒把当前时间推送给所有客户端。
+    connection.send() 可以在任意线程调用，数据作为任务交给连接所属的事件循环写出
+     */
+    @Test
+    public void pushServer() throws Exception {
+        Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        ReactorServer server = new ReactorServer(9898, () -> new ChannelHandler() {
+            @Override
+            public void channelActive(Connection connection) {
+                connections.add(connection);
+            }
+
+            @Override
+            public void channelRead(Connection connection, ByteBuffer buffer) {
+            }
+
+            @Override
+            public void channelInactive(Connection connection) {
+                connections.remove(connection);
+            }
+        });
+        server.start();
+        while (true) {
+            Thread.sleep(1000);
+            ByteBuffer message = ByteBuffer.wrap((LocalDateTime.now() + "\n").getBytes());
+            for (Connection connection : connections) {
+                connection.send(message.duplicate());
+            }
+        }
+    }
+
+    /*
+    回显服务端：connection.write() 写不完的数据进入出站队列，写就绪时再发送；
+    客户端只发不收时，出站队列达到高水位后服务端暂停读取该客户端
+     */
+    @Test
+    public void echoServer() throws Exception {
+        ReactorServer server = new ReactorServer(9898, () -> (connection, buffer) -> connection.write(buffer));
+        server.start();
+        server.join();
+    }
+
+    /*
+    带指标的回显服务端：jconsole 查看 com.lea.select:type=ReactorMetrics，
+    或者 curl http://localhost:9899/metrics
+     */
+    @Test
+    public void metricsServer() throws Exception {
+        ReactorMetrics metrics = new ReactorMetrics("echo");
+        metrics.registerMBean();
+        ReactorServer server = new ReactorServer(new InetSocketAddress(9898), new ReactorConfig().metrics(metrics),
+                () -> (connection, buffer) -> connection.write(buffer));
+        server.start();
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(9899)) {
+            endpoint.register(metrics).register(new BufferPoolMetrics()).start();
+            server.join();
+        } finally {
+            metrics.unregisterMBean();
+        }
+    }
+
+    /*
+    长度前缀帧：服务端按完整消息处理，不再受一次 read 读到多少字节的影响
+     */
+    @Test
+    public void frameServer() throws Exception {
+        ReactorServer server = new ReactorServer(9898, () -> new LengthFieldFrameDecoder((connection, frames) -> {
+            for (ByteBuffer frame : frames) {
+                System.out.println(Utils.toString(frame));
+            }
+        }));
+        server.start();
+        server.join();
+    }
+
+    /*
+    长度前缀帧客户端：一次写入多条消息，外加一条超过 1024 字节的消息
+     */
+    @Test
+    public void frameClient() throws IOException {
+        SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", 9898));
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire(8192);
+        for (int i = 0; i < 3; i++) {
+            byte[] body = (LocalDateTime.now() + " 第" + i + "条消息").getBytes();
+            buffer.putInt(body.length).put(body);
+        }
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 2048) {
+            sb.append(LocalDateTime.now()).append(' ');
+        }
+        byte[] body = sb.toString().getBytes();
+        buffer.putInt(body.length).put(body);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            socketChannel.write(buffer);
+        }
+        BufferPool.DEFAULT.release(buffer);
+        socketChannel.close();
+    }
+
+    /*
+    非阻塞文件服务端：每个连接一个 FileSender 作为附件，
+    发送缓冲区满了就等下一次 OP_WRITE，从上次的位置继续 transferTo
+     */
+    @Test
+    public void fileServer() throws IOException {
+        ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.configureBlocking(false);
+        serverSocketChannel.bind(new InetSocketAddress(9898));
+        Selector selector = Selector.open();
+        serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        while (selector.select() > 0) {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey sk = it.next();
+                it.remove();
+                if (sk.isAcceptable()) {
+                    SocketChannel socketChannel = serverSocketChannel.accept();
+                    socketChannel.configureBlocking(false);
+                    FileSender sender = new FileSender(Paths.get("微信图片_20191104133859.jpg"));
+                    socketChannel.register(selector, SelectionKey.OP_WRITE, sender);
+                } else if (sk.isWritable()) {
+                    FileSender sender = (FileSender) sk.attachment();
+                    try {
+                        if (!sender.transferTo((SocketChannel) sk.channel())) {
+                            // 没发完，等下一次写就绪
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    sk.cancel();
+                    sender.close();
+                    sk.channel().close();
+                }
+            }
+        }
+    }
+
+    /*
+    文件客户端：从 fileServer 接收文件
+     */
+    @Test
+    public void fileClient() throws IOException {
+        SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", 9898));
+        FileReceiver receiver = new FileReceiver(Paths.get("copyPic3.jpg"));
+        receiver.receive(socketChannel);
+        System.out.println("接收完成：" + receiver.size() + " 字节");
+        receiver.close();
+        socketChannel.close();
+    }
+
+    /*
+    RPC 服务端：把请求转成大写返回；以 "slow" 开头的请求 1 秒后才响应，不会挡住后面的请求
+     */
+    @Test
+    public void rpcServer() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        RpcServer server = new RpcServer(9898, request -> {
+            String s = StandardCharsets.UTF_8.decode(request).toString();
+            ByteBuffer response = StandardCharsets.UTF_8.encode(s.toUpperCase());
+            if (!s.startsWith("slow")) {
+                return CompletableFuture.completedFuture(response);
+            }
+            CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+            scheduler.schedule(() -> future.complete(response), 1, TimeUnit.SECONDS);
+            return future;
+        });
+        server.start();
+        server.join();
+    }
+
+    /*
+    RPC 客户端：一个连接上连续发出请求，不等响应；慢请求最后返回，第二个慢请求 500 毫秒超时
+     */
+    @Test
+    public void rpcClient() throws Exception {
+        try (RpcClient client = new RpcClient(new InetSocketAddress("localhost", 9898))) {
+            CompletableFuture<?>[] calls = new CompletableFuture<?>[6];
+            for (int i = 0; i < calls.length; i++) {
+                String request = (i < 2 ? "slow " : "") + LocalDateTime.now() + " 第" + i + "个请求";
+                long timeout = i == 1 ? 500 : 5000;
+                calls[i] = client.call(StandardCharsets.UTF_8.encode(request), timeout, TimeUnit.MILLISECONDS)
+                        .handle((response, cause) -> {
+                            System.out.println(cause == null ? StandardCharsets.UTF_8.decode(response) : request + "：" + cause);
+                            return null;
+                        });
+            }
+            CompletableFuture.allOf(calls).join();
+        }
+    }
+
+    /*
+    连接池客户端：配合 echoServer()，每次交换借一个连接、用完归还，
+    和每次都 SocketChannel.open() 比较耗时，握手只发生在池子预热的时候
+     */
+    @Test
+    public void pooledClient() throws Exception {
+        InetSocketAddress address = new InetSocketAddress("localhost", 9898);
+        ByteBuffer request = ByteBuffer.allocate(64);
+        ByteBuffer response = ByteBuffer.allocate(64);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            try (SocketChannel socketChannel = SocketChannel.open(address)) {
+                echo(socketChannel, request, response, i);
+            }
+        }
+        System.out.println("每次新建连接：" + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        try (ChannelPool pool = new ChannelPool(new PoolConfig().connections(1, 4))) {
+            start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                try (PooledChannel pooled = pool.lease(address)) {
+                    echo(pooled.channel(), request, response, i);
+                }
+            }
+            System.out.println("连接池：" + (System.nanoTime() - start) / 1_000_000 + " ms，借出 " + pool.leases()
+                    + " 次，建立连接 " + pool.connects() + " 个");
+        }
+    }
+
+    private static void echo(SocketChannel socketChannel, ByteBuffer request, ByteBuffer response, int i) throws IOException {
+        request.clear();
+        request.put((LocalDateTime.now() + " 第" + i + "次").getBytes()).flip();
+        int length = request.remaining();
+        while (request.hasRemaining()) {
+            socketChannel.write(request);
+        }
+        response.clear().limit(length);
+        while (response.hasRemaining()) {
+            if (socketChannel.read(response) < 0) {
+                throw new IOException("connection closed by server");
+            }
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package com.lea.select;
 
+import com.lea.buffer.BufferPool;
+import com.lea.select.metrics.MetricsEndpoint;
+import com.lea.select.udp.UdpIngestServer;
+import com.lea.utils.Utils;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -22,7 +26,7 @@ public class NonBlockingNIO2 {
     public static void main(String[] args) throws IOException {
         DatagramChannel dc = DatagramChannel.open();
         dc.configureBlocking(false);
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire(1024);
         Scanner sc = new Scanner(System.in);
         while (sc.hasNextLine()) {
             String s = sc.nextLine();
@@ -32,6 +36,7 @@ public class NonBlockingNIO2 {
             buffer.clear();
         };
 
+        BufferPool.DEFAULT.release(buffer);
         dc.close();
     }
 
@@ -43,20 +48,37 @@ public class NonBlockingNIO2 {
 
         Selector select = Selector.open();
         dc.register(select, SelectionKey.OP_READ);
+        // 接收缓冲区只申请一次，每个数据报复用
+        ByteBuffer buffer = BufferPool.DEFAULT.acquire(1024);
 
         while (select.select() > 0) {
             Iterator<SelectionKey> it = select.selectedKeys().iterator();
             while (it.hasNext()) {
                 SelectionKey sk = it.next();
                 if (sk.isReadable()) {
-                    ByteBuffer buffer = ByteBuffer.allocate(1024);
                     dc.receive(buffer);
                     buffer.flip();
-                    System.out.println(new String(buffer.array(), 0, buffer.limit()));
+                    System.out.println(Utils.toString(buffer));
                     buffer.clear();
                 }
                 it.remove();
             }
         }
+        BufferPool.DEFAULT.release(buffer);
+    }
+
+    /*
+    高速接收：接收线程每次唤醒批量收进环形队列，打印交给 4 个工作线程，接收不再被打印拖慢；
+    收发、丢弃的计数：curl http://localhost:9899/metrics
+     */
+    @Test
+    public void ingest() throws Exception {
+        UdpIngestServer server = new UdpIngestServer(9898, 4, slot ->
+                System.out.println(slot.sender() + "：" + Utils.toString(slot.buffer())));
+        server.start();
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(9899)) {
+            endpoint.register(server).start();
+            server.join();
+        }
     }
 }
@@ -1,8 +1,82 @@
 package com.lea.select;
 
+import com.lea.select.session.SessionTable;
+import org.junit.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
 /**
  * @author lzc
  * @create 2020.09.27 10:46
  */
 public class SelectTest {
+
+    /*
+    堆外连接状态表：100 万个连接随机打开、关闭、累加计数，与 HashMap 对照结果，统计每个连接占用的内存和期间的 GC 次数
+     */
+    @Test
+    public void sessionTable() {
+        int max = 1_000_000;
+        SessionTable table = new SessionTable(max);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int id = 0; id < max; id++) {
+            table.open(id, 0);
+        }
+        for (int id = 0; id < max; id++) {
+            expected.put(id, 0L);
+        }
+
+        long gcBefore = gcCount();
+        long start = System.nanoTime();
+        int nextId = max;
+        for (int i = 0; i < 10_000_000; i++) {
+            int id = nextId - 1 - random.nextInt(2 * max);
+            int record = table.find(id);
+            if (record >= 0 && random.nextInt(8) == 0) {
+                // 旧连接关闭，新连接复用它的记录
+                table.close(id);
+                table.open(nextId++, i);
+            } else if (record >= 0) {
+                table.onRead(record, 100, i);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long gcAfter = gcCount();
+
+        // 重放一遍同样的操作序列，用 HashMap 核对
+        random = new Random(1);
+        nextId = max;
+        for (int i = 0; i < 10_000_000; i++) {
+            int id = nextId - 1 - random.nextInt(2 * max);
+            Long bytes = expected.get(id);
+            if (bytes != null && random.nextInt(8) == 0) {
+                expected.remove(id);
+                expected.put(nextId++, 0L);
+            } else if (bytes != null) {
+                expected.put(id, bytes + 100);
+            }
+        }
+        boolean same = table.size() == expected.size();
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            int record = table.find(entry.getKey());
+            same &= record >= 0 && table.bytesRead(record) == entry.getValue();
+        }
+
+        System.out.println("连接数：" + table.size() + "，与 HashMap 一致：" + same
+                + "，每个连接 " + table.memoryBytes() / max + " 字节（堆外）"
+                + "，1000 万次操作 " + elapsed / 1_000_000 + " ms，期间 GC " + (gcAfter - gcBefore) + " 次");
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
 }
@@ -0,0 +1,340 @@
+package com.lea.select.async;
+
+import com.lea.buffer.AdaptiveRecvAllocator;
+import com.lea.buffer.BufferPool;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个异步连接：AsynchronousSocketChannel 与处理器的绑定关系
+ *
+ *  读：同一时间只有一个读操作，完成时回调 AsyncHandler.read()，回调处理完（或者它返回的 CompletionStage 完成）
+ *      才发起下一次读；缓冲区按 AdaptiveRecvAllocator 的大小从 BufferPool 获取
+ *  写：AsynchronousSocketChannel 同一时间也只能有一个写操作，否则抛 WritePendingException，
+ *      所以 write() 把数据拷贝进出站队列，由写完成回调接着写下一批（聚集写入），可以在任意线程调用
+ *  背压：出站队列超过高水位时不再发起下一次读，对端只发不收时队列不会无限增长；
+ *      写到低水位以下再恢复读取。处理器也可以用 isWritable() 判断是否继续写
+ *
+ * @author lzc
+ * @create 2026.10.18 00:50
+ */
+public class AsyncConnection {
+
+    // 出站队列中单个缓冲区的最大大小
+    private static final int MAX_CHUNK = 64 * 1024;
+
+    private final AsynchronousSocketChannel channel;
+    private final AsyncHandler handler;
+    private final AsyncServer server;
+    private final AdaptiveRecvAllocator.Handle recvHandle;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // 出站队列，缓冲区都处于读模式；以下字段都用 outbound 加锁
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closeAfterFlush;
+    // 出站队列中还没写出的字节数
+    private long pendingBytes;
+    private volatile boolean writable = true;
+    // 因为不可写而没有发起下一次读，可写时由写完成回调发起
+    private boolean readPaused;
+
+    private final CompletionHandler<Integer, ByteBuffer> readCompletion = new CompletionHandler<>() {
+        @Override
+        public void completed(Integer len, ByteBuffer buffer) {
+            onRead(len, buffer);
+        }
+
+        @Override
+        public void failed(Throwable cause, ByteBuffer buffer) {
+            BufferPool.DEFAULT.release(buffer);
+            onFailure(cause);
+        }
+    };
+
+    private final CompletionHandler<Long, ByteBuffer[]> writeCompletion = new CompletionHandler<>() {
+        @Override
+        public void completed(Long written, ByteBuffer[] batch) {
+            onWritten(written, batch);
+        }
+
+        @Override
+        public void failed(Throwable cause, ByteBuffer[] batch) {
+            synchronized (outbound) {
+                writing = false;
+                releaseOutbound();
+            }
+            onFailure(cause);
+        }
+    };
+
+    AsyncConnection(AsynchronousSocketChannel channel, AsyncHandler handler, AsyncServer server,
+                    AdaptiveRecvAllocator.Handle recvHandle) {
+        this.channel = channel;
+        this.handler = handler;
+        this.server = server;
+        this.recvHandle = recvHandle;
+    }
+
+    public AsynchronousSocketChannel channel() {
+        return channel;
+    }
+
+    AsyncHandler handler() {
+        return handler;
+    }
+
+    public SocketAddress remoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    /*
+    出站队列是否低于高水位，生产者可以据此决定是否继续写
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /*
+    出站队列中还没写出的字节数
+     */
+    public long pendingBytes() {
+        synchronized (outbound) {
+            return pendingBytes;
+        }
+    }
+
+    // ------------------------------ 读 ------------------------------
+
+    void startRead() {
+        if (closed.get()) {
+            return;
+        }
+        ByteBuffer buffer = recvHandle.allocate(BufferPool.DEFAULT);
+        try {
+            channel.read(buffer, buffer, readCompletion);
+        } catch (RuntimeException e) {
+            // 通道已经关闭（ShutdownChannelGroupException 等）
+            BufferPool.DEFAULT.release(buffer);
+            onFailure(e);
+        }
+    }
+
+    private void onRead(int len, ByteBuffer buffer) {
+        if (len < 0) {
+            // 对端关闭了输出，已经提交的数据写完再关闭
+            BufferPool.DEFAULT.release(buffer);
+            closeAfterFlush();
+            return;
+        }
+        if (closed.get()) {
+            BufferPool.DEFAULT.release(buffer);
+            return;
+        }
+        recvHandle.reset();
+        recvHandle.lastBytesRead(len);
+        recvHandle.readComplete();
+        buffer.flip();
+        CompletionStage<?> pending;
+        try {
+            pending = handler.read(this, buffer);
+        } catch (IOException | RuntimeException e) {
+            BufferPool.DEFAULT.release(buffer);
+            onFailure(e);
+            return;
+        }
+        if (pending == null) {
+            BufferPool.DEFAULT.release(buffer);
+            readNext();
+            return;
+        }
+        pending.whenComplete((result, cause) -> {
+            BufferPool.DEFAULT.release(buffer);
+            if (cause != null) {
+                onFailure(cause);
+            } else {
+                readNext();
+            }
+        });
+    }
+
+    /*
+    处理完一次读之后发起下一次读；超过高水位时先暂停，等出站队列回落到低水位以下
+     */
+    private void readNext() {
+        synchronized (outbound) {
+            if (!writable) {
+                readPaused = true;
+                return;
+            }
+        }
+        startRead();
+    }
+
+    // ------------------------------ 写 ------------------------------
+
+    /*
+    写数据：拷贝进出站队列，没有正在进行的写操作就立即开始写。方法返回后 data 可以立即复用
+     */
+    public void write(ByteBuffer data) throws IOException {
+        if (closed.get()) {
+            throw new ClosedChannelException();
+        }
+        if (!data.hasRemaining()) {
+            return;
+        }
+        boolean start;
+        synchronized (outbound) {
+            if (closed.get() || closeAfterFlush) {
+                throw new ClosedChannelException();
+            }
+            while (data.hasRemaining()) {
+                int n = Math.min(data.remaining(), MAX_CHUNK);
+                ByteBuffer chunk = BufferPool.DEFAULT.acquire(n);
+                chunk.put(data.slice(data.position(), n)).flip();
+                data.position(data.position() + n);
+                outbound.add(chunk);
+                pendingBytes += n;
+            }
+            if (writable && pendingBytes > server.writeHighWaterMark()) {
+                writable = false;
+            }
+            start = !writing;
+            writing = true;
+        }
+        if (start) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() {
+        ByteBuffer[] batch;
+        boolean closeNow = false;
+        synchronized (outbound) {
+            if (closed.get()) {
+                writing = false;
+                releaseOutbound();
+                return;
+            }
+            if (outbound.isEmpty()) {
+                writing = false;
+                batch = null;
+                closeNow = closeAfterFlush;
+            } else {
+                // 一次最多聚集 16 个缓冲区
+                batch = new ByteBuffer[Math.min(outbound.size(), 16)];
+                Iterator<ByteBuffer> it = outbound.iterator();
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = it.next();
+                }
+            }
+        }
+        if (batch == null) {
+            if (closeNow) {
+                close();
+            }
+            return;
+        }
+        try {
+            channel.write(batch, 0, batch.length, 0, TimeUnit.MILLISECONDS, batch, writeCompletion);
+        } catch (RuntimeException e) {
+            writeCompletion.failed(e, batch);
+        }
+    }
+
+    private void onWritten(long written, ByteBuffer[] batch) {
+        boolean resume = false;
+        synchronized (outbound) {
+            for (ByteBuffer buffer : batch) {
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+                BufferPool.DEFAULT.release(outbound.poll());
+            }
+            pendingBytes -= written;
+            if (!writable && pendingBytes <= server.writeLowWaterMark()) {
+                writable = true;
+                resume = readPaused;
+                readPaused = false;
+            }
+        }
+        if (resume) {
+            startRead();
+        }
+        writeNext();
+    }
+
+    /*
+    出站队列写完之后关闭连接，之后不能再 write()
+     */
+    public void closeAfterFlush() {
+        boolean closeNow;
+        synchronized (outbound) {
+            closeAfterFlush = true;
+            closeNow = !writing;
+        }
+        if (closeNow) {
+            close();
+        }
+    }
+
+    private void releaseOutbound() {
+        ByteBuffer buffer;
+        while ((buffer = outbound.poll()) != null) {
+            BufferPool.DEFAULT.release(buffer);
+        }
+    }
+
+    // ------------------------------ 关闭 ------------------------------
+
+    private void onFailure(Throwable cause) {
+        if (closed.get() || cause instanceof AsynchronousCloseException) {
+            // 主动关闭导致进行中的读写失败，不算错误
+            close();
+            return;
+        }
+        handler.failed(this, cause);
+        close();
+    }
+
+    /*
+    关闭连接，可以在任意线程调用，重复调用无效。进行中的读写以 AsynchronousCloseException 结束
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        synchronized (outbound) {
+            // 正在写的缓冲区等写操作结束（以失败结束）时再归还
+            if (!writing) {
+                releaseOutbound();
+            }
+        }
+        server.remove(this);
+        handler.closed(this);
+    }
+}
@@ -0,0 +1,159 @@
+package com.lea.select.async;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步接收 FileSender 发送的文件：socket 读到的数据用 AsynchronousFileChannel 写入文件
+ *
+ *  传输格式与 FileReceiver 相同：[文件长度 8 字节][文件内容]
+ *
+ *  一、read() 返回写文件的 CompletionStage，文件写完之前 AsyncConnection 不会发起下一次 socket 读，
+ *      网络线程不会阻塞在磁盘上，磁盘慢时也不会在内存里堆积数据
+ *  二、AsynchronousFileChannel.write() 可能只写一部分，写完成回调里接着写剩下的
+ *  三、接收完成后回调 received()，completion() 以文件长度完成；连接提前关闭时以 EOFException 失败，
+ *      文件头中的长度为负数时以 IOException 失败并关闭连接
+ *
+ *  Linux 上没有真正的异步文件 IO，JDK 用一个线程池执行阻塞的 pwrite，阻塞的是那个线程池而不是网络线程
+ *
+ * @author lzc
+ * @create 2026.10.18 01:10
+ */
+public class AsyncFileReceiver implements AsyncHandler {
+
+    private final Path path;
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    private AsynchronousFileChannel fileChannel;
+    private long size = -1;
+    private long position;
+
+    public AsyncFileReceiver(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void connected(AsyncConnection connection) throws IOException {
+        fileChannel = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public CompletionStage<?> read(AsyncConnection connection, ByteBuffer buffer) throws IOException {
+        if (size < 0) {
+            while (header.hasRemaining() && buffer.hasRemaining()) {
+                header.put(buffer.get());
+            }
+            if (header.hasRemaining()) {
+                return null;
+            }
+            long length = header.flip().getLong();
+            if (length < 0) {
+                // 否则 size 一直小于 0，之后的数据全部被悄悄忽略
+                IOException e = new IOException("invalid file size " + length);
+                completion.completeExceptionally(e);
+                fileChannel.close();
+                throw e;
+            }
+            size = length;
+            if (size == 0) {
+                finish(connection);
+                return null;
+            }
+        }
+        if (position >= size) {
+            // 文件之后多出来的数据忽略
+            return null;
+        }
+        if (buffer.remaining() > size - position) {
+            buffer.limit(buffer.position() + (int) (size - position));
+        }
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        fileChannel.write(buffer, position, connection, new CompletionHandler<>() {
+            @Override
+            public void completed(Integer n, AsyncConnection attachment) {
+                position += n;
+                if (buffer.hasRemaining()) {
+                    fileChannel.write(buffer, position, attachment, this);
+                    return;
+                }
+                if (position == size) {
+                    finish(attachment);
+                }
+                written.complete(null);
+            }
+
+            @Override
+            public void failed(Throwable cause, AsyncConnection attachment) {
+                written.completeExceptionally(cause);
+            }
+        });
+        return written;
+    }
+
+    private void finish(AsyncConnection connection) {
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            completion.completeExceptionally(e);
+            connection.close();
+            return;
+        }
+        // 先完成，received() 中关闭连接时 closed() 不会再当作提前关闭
+        completion.complete(size);
+        try {
+            received(connection, size);
+        } catch (IOException | RuntimeException e) {
+            connection.handler().failed(connection, e);
+        }
+    }
+
+    /*
+    文件接收完成，在写文件的线程中调用，例如回复对方
+     */
+    protected void received(AsyncConnection connection, long size) throws IOException {
+    }
+
+    @Override
+    public void closed(AsyncConnection connection) {
+        if (completion.isDone()) {
+            return;
+        }
+        completion.completeExceptionally(new EOFException("connection closed at " + position + " of " + size + " bytes"));
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+    以文件长度完成
+     */
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    /*
+    文件长度，还没读到文件头时返回 -1
+     */
+    public long size() {
+        return size;
+    }
+}
@@ -0,0 +1,46 @@
+package com.lea.select.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步连接的事件回调，在 AsynchronousChannelGroup 的线程中执行
+ *
+ *  每个连接同时只有一个读操作在进行，所以同一个连接的 read() 不会并发调用，
+ *  实现类可以直接保存本连接的状态；但前后两次回调可能在不同的线程中，状态字段不需要 volatile，
+ *  因为下一次读是在上一次回调返回之后才发起的
+ *
+ * @author lzc
+ * @create 2026.10.18 00:45
+ */
+public interface AsyncHandler {
+
+    /*
+    连接建立之后、第一次读之前调用
+     */
+    default void connected(AsyncConnection connection) throws IOException {
+    }
+
+    /*
+    读到数据，buffer 处于读模式。
+    返回 null：已经处理完，buffer 归还缓冲区池，立即发起下一次读；
+    返回 CompletionStage：还在异步处理（例如写文件），完成之前 buffer 不会被回收、也不会发起下一次读，
+    对端发得再快也不会在内存里堆积
+     */
+    CompletionStage<?> read(AsyncConnection connection, ByteBuffer buffer) throws IOException;
+
+    /*
+    连接关闭（对端关闭、出错或者调用了 close()）之后调用，只调用一次
+     */
+    default void closed(AsyncConnection connection) {
+    }
+
+    /*
+    读写出错或者 read() 抛出异常，默认打印后关闭连接
+     */
+    default void failed(AsyncConnection connection, Throwable cause) {
+        cause.printStackTrace();
+        connection.close();
+    }
+}
@@ -0,0 +1,232 @@
+package com.lea.select.async;
+
+import com.lea.buffer.AdaptiveRecvAllocator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 异步（NIO.2）服务端：AsynchronousServerSocketChannel + CompletionHandler
+ *
+ *  阻塞模式（BlockingNIO、VirtualThreadServer）是线程等数据；Selector 模式（NONBlocking、ReactorServer）是线程等就绪事件，
+ *  自己调用 read/write；异步模式是把读写操作交给系统，操作完成后在 AsynchronousChannelGroup 的线程中回调。
+ *  Linux 上 JDK 的实现仍然是 epoll + 线程池，完成回调在组内的线程中执行
+ *
+ *  一、AsynchronousChannelGroup：固定大小的线程池，可以由多个服务端共用（newGroup()），
+ *      不传时服务端自己创建一个，线程数等于 CPU 核数，关闭服务端时一起关闭
+ *  二、accept 完成后立即发起下一次 accept，再处理新连接；accept 出错（例如文件描述符用完）时退避一段时间再重试
+ *  三、每个连接的读写见 AsyncConnection，业务逻辑由每个连接一个的 AsyncHandler 实现
+ *
+ * @author lzc
+ * @create 2026.10.18 01:00
+ */
+public class AsyncServer implements Closeable {
+
+    // accept 连续出错时的重试间隔，从最小值开始每次翻倍
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final SocketAddress bindAddress;
+    private final int backlog;
+    private final Supplier<? extends AsyncHandler> handlerFactory;
+    private final AsynchronousChannelGroup group;
+    // 自己创建的线程组，关闭时一起关闭
+    private final boolean ownGroup;
+    private final AdaptiveRecvAllocator recvAllocator = new AdaptiveRecvAllocator();
+    private final Set<AsyncConnection> connections = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private AsynchronousServerSocketChannel serverChannel;
+    private volatile boolean running;
+    // 出站队列高水位：超过之后暂停读取该连接；低水位：回落到这里以下恢复读取
+    private int writeHighWaterMark = 64 * 1024;
+    private int writeLowWaterMark = 32 * 1024;
+    // 同一时间只有一个 accept 在进行，只在 accept 的完成回调中读写
+    private long acceptBackoffMillis;
+
+    private final CompletionHandler<AsynchronousSocketChannel, Void> acceptCompletion = new CompletionHandler<>() {
+        @Override
+        public void completed(AsynchronousSocketChannel channel, Void attachment) {
+            acceptBackoffMillis = 0;
+            accept();
+            onAccept(channel);
+        }
+
+        @Override
+        public void failed(Throwable cause, Void attachment) {
+            if (!running) {
+                // close() 关闭了服务端通道
+                return;
+            }
+            // 马上重试还是同样的错误，退避之后再试，不空转、不刷屏；只打印连续出错的第一次
+            if (acceptBackoffMillis == 0) {
+                cause.printStackTrace();
+            }
+            acceptBackoffMillis = Math.min(Math.max(acceptBackoffMillis * 2, MIN_ACCEPT_BACKOFF_MILLIS),
+                    MAX_ACCEPT_BACKOFF_MILLIS);
+            CompletableFuture.delayedExecutor(acceptBackoffMillis, TimeUnit.MILLISECONDS).execute(() -> {
+                if (running) {
+                    accept();
+                }
+            });
+        }
+    };
+
+    public AsyncServer(int port, Supplier<? extends AsyncHandler> handlerFactory) throws IOException {
+        this(new InetSocketAddress(port), 1024, null, handlerFactory);
+    }
+
+    /*
+    group 为 null 时自己创建线程组
+     */
+    public AsyncServer(SocketAddress bindAddress, int backlog, AsynchronousChannelGroup group,
+                       Supplier<? extends AsyncHandler> handlerFactory) throws IOException {
+        this.bindAddress = bindAddress;
+        this.backlog = backlog;
+        this.handlerFactory = handlerFactory;
+        this.ownGroup = group == null;
+        this.group = group != null ? group : newGroup(Runtime.getRuntime().availableProcessors(), "async-server");
+    }
+
+    /*
+    可以被多个服务端共用的线程组，线程名为 name-N
+     */
+    public static AsynchronousChannelGroup newGroup(int threads, String name) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return AsynchronousChannelGroup.withFixedThreadPool(threads, factory);
+    }
+
+    /*
+    出站队列的低水位和高水位（字节），在 start() 之前设置
+     */
+    public AsyncServer writeWaterMark(int low, int high) {
+        if (low < 0 || high < low) {
+            throw new IllegalArgumentException("writeWaterMark: low " + low + ", high " + high);
+        }
+        this.writeLowWaterMark = low;
+        this.writeHighWaterMark = high;
+        return this;
+    }
+
+    int writeHighWaterMark() {
+        return writeHighWaterMark;
+    }
+
+    int writeLowWaterMark() {
+        return writeLowWaterMark;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("server already started");
+        }
+        serverChannel = AsynchronousServerSocketChannel.open(group);
+        serverChannel.bind(bindAddress, backlog);
+        running = true;
+        accept();
+    }
+
+    private void accept() {
+        try {
+            serverChannel.accept(null, acceptCompletion);
+        } catch (RuntimeException e) {
+            // 服务端通道已经关闭或者线程组已经关闭
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void onAccept(AsynchronousSocketChannel channel) {
+        AsyncConnection connection;
+        try {
+            connection = new AsyncConnection(channel, handlerFactory.get(), this, recvAllocator.newHandle());
+        } catch (RuntimeException e) {
+            // 处理器工厂出错只关闭这一个连接，不影响线程组
+            e.printStackTrace();
+            try {
+                channel.close();
+            } catch (IOException ce) {
+                ce.printStackTrace();
+            }
+            return;
+        }
+        connections.add(connection);
+        if (!running) {
+            // 与 close() 同时发生，close() 可能已经遍历过连接集合
+            connection.close();
+            return;
+        }
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connection.handler().connected(connection);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            connection.close();
+            return;
+        }
+        connection.startRead();
+    }
+
+    void remove(AsyncConnection connection) {
+        connections.remove(connection);
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /*
+    当前的连接数
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /*
+    阻塞直到服务端关闭
+     */
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        serverChannel.close();
+        for (AsyncConnection connection : connections) {
+            connection.close();
+        }
+        if (ownGroup) {
+            group.shutdown();
+            try {
+                group.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        stopped.countDown();
+    }
+}
@@ -0,0 +1,17 @@
+package com.lea.select.blocking;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 阻塞模式的连接处理器：在连接独占的虚拟线程中执行，可以直接用阻塞的 read/write，
+ * 返回或抛出异常后连接由服务端关闭
+ *
+ * @author lzc
+ * @create 2026.10.17 19:05
+ */
+@FunctionalInterface
+public interface ConnectionHandler {
+
+    void handle(SocketChannel channel) throws IOException;
+}
@@ -0,0 +1,155 @@
+package com.lea.select.blocking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞模式服务端：循环 accept，每个连接一个虚拟线程（JDK 21）
+ *
+ *  BlockingNIO.test2()、BlockingNIO2.server() 只能接收一个连接，并且在调用线程里处理；
+ *  用平台线程池处理多个连接时，并发连接数受线程数限制。
+ *  虚拟线程阻塞在 socket 读写上时会让出载体线程，所以阻塞写法的处理器也能支撑数万个并发连接
+ *
+ * @author lzc
+ * @create 2026.10.17 19:10
+ */
+public class VirtualThreadServer implements Closeable {
+
+    // accept 连续出错时的重试间隔，从最小值开始每次翻倍
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final SocketAddress bindAddress;
+    private final int backlog;
+    private final ConnectionHandler handler;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // 正在处理的连接，关闭服务端时一起关闭
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public VirtualThreadServer(int port, ConnectionHandler handler) {
+        this(new InetSocketAddress(port), 1024, handler);
+    }
+
+    public VirtualThreadServer(SocketAddress bindAddress, int backlog, ConnectionHandler handler) {
+        this.bindAddress = bindAddress;
+        this.backlog = backlog;
+        this.handler = handler;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("server already started");
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(bindAddress, backlog);
+        running = true;
+        acceptor = Thread.ofPlatform().name("virtual-server-acceptor").start(this::acceptLoop);
+    }
+
+    private void acceptLoop() {
+        long backoffMillis = 0;
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                // close() 关闭了服务端通道
+                return;
+            } catch (IOException e) {
+                // 例如文件描述符用完（EMFILE）：马上重试还是同样的错误，退避之后再试，不空转、不刷屏
+                if (backoffMillis == 0) {
+                    e.printStackTrace();
+                }
+                backoffMillis = Math.min(Math.max(backoffMillis * 2, MIN_ACCEPT_BACKOFF_MILLIS), MAX_ACCEPT_BACKOFF_MILLIS);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            backoffMillis = 0;
+            connections.add(channel);
+            try {
+                executor.execute(() -> handle(channel));
+            } catch (RejectedExecutionException e) {
+                // close() 已经关闭了线程池，刚接收的连接没人处理，直接关闭
+                connections.remove(channel);
+                try {
+                    channel.close();
+                } catch (IOException ce) {
+                    ce.printStackTrace();
+                }
+                return;
+            }
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try {
+            handler.handle(channel);
+        } catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        } finally {
+            connections.remove(channel);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /*
+    当前正在处理的连接数
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /*
+    阻塞直到服务端关闭
+     */
+    public void join() throws InterruptedException {
+        acceptor.join();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        serverChannel.close();
+        for (SocketChannel channel : connections) {
+            channel.close();
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
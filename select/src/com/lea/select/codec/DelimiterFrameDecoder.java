@@ -0,0 +1,86 @@
+package com.lea.select.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 分隔符帧：消息以指定的分隔符（例如 "\n"）结尾
+ *
+ * @author lzc
+ * @create 2026.10.17 11:40
+ */
+public class DelimiterFrameDecoder extends FrameDecoder {
+
+    private final byte[] delimiter;
+    private final int maxFrameLength;
+    // 交付的消息是否去掉分隔符
+    private final boolean stripDelimiter;
+    // 当前半帧已经查找过、不可能是分隔符起点的字节数。
+    // frameLength() 返回 -1 之后，下一次调用一定还是这一帧（FrameDecoder 把它放进累积缓冲区、补上新数据再试），
+    // 从这里接着找，大帧分多次到达时不必每次从头扫描
+    private int scanned;
+
+    public DelimiterFrameDecoder(FrameHandler handler, byte[] delimiter) {
+        this(handler, delimiter, 64 * 1024, true);
+    }
+
+    public DelimiterFrameDecoder(FrameHandler handler, byte[] delimiter, int maxFrameLength, boolean stripDelimiter) {
+        super(handler);
+        if (delimiter.length == 0) {
+            throw new IllegalArgumentException("empty delimiter");
+        }
+        this.delimiter = delimiter.clone();
+        this.maxFrameLength = maxFrameLength;
+        this.stripDelimiter = stripDelimiter;
+    }
+
+    @Override
+    protected int frameLength(ByteBuffer buf) throws IOException {
+        int start = buf.position();
+        int last = buf.limit() - delimiter.length;
+        for (int i = start + scanned; i <= last; i++) {
+            if (matches(buf, i)) {
+                scanned = 0;
+                return i - start + delimiter.length;
+            }
+        }
+        if (buf.remaining() > maxFrameLength + delimiter.length) {
+            throw new IOException("no delimiter found within " + maxFrameLength + " bytes");
+        }
+        scanned = Math.max(scanned, last - start + 1);
+        return -1;
+    }
+
+    private boolean matches(ByteBuffer buf, int index) {
+        for (int j = 0; j < delimiter.length; j++) {
+            if (buf.get(index + j) != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected int headerLength() {
+        return 0;
+    }
+
+    @Override
+    protected int trailerLength() {
+        return stripDelimiter ? delimiter.length : 0;
+    }
+
+    /*
+    只拷贝到 in 中第一个可能是分隔符结尾的字节
+     */
+    @Override
+    protected int probeLength(ByteBuffer partial, ByteBuffer in) {
+        byte end = delimiter[delimiter.length - 1];
+        for (int i = in.position(); i < in.limit(); i++) {
+            if (in.get(i) == end) {
+                return i - in.position() + 1;
+            }
+        }
+        return in.remaining();
+    }
+}
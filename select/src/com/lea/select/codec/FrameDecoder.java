@@ -0,0 +1,165 @@
+package com.lea.select.codec;
+
+import com.lea.buffer.BufferPool;
+import com.lea.select.reactor.ChannelHandler;
+import com.lea.select.reactor.Connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 帧解码器：把 TCP 字节流切分成一条条完整的消息
+ *
+ *  一、TCP 没有消息边界，一次 read 可能只读到半条消息，也可能读到好几条
+ *  二、解码过程
+ *      1.上次剩下的半帧在累积缓冲区（cumulation）中，只从本次数据里拷贝补齐它需要的字节
+ *      2.本次数据中完整的帧直接 slice 出来，不拷贝
+ *      3.所有帧一起交给 FrameHandler
+ *      4.最后剩下的半帧拷贝进累积缓冲区，等下次读事件
+ *  三、累积缓冲区从 BufferPool 获取，没有半帧时立即归还，空闲连接不占内存
+ *
+ *  每个连接一个实例，只在所属事件循环线程中使用
+ *
+ * @author lzc
+ * @create 2026.10.17 11:10
+ */
+public abstract class FrameDecoder implements ChannelHandler {
+
+    private final FrameHandler handler;
+    // 本次读事件解码出的帧，复用
+    private final List<ByteBuffer> frames = new ArrayList<>();
+    // 累积缓冲区，写模式；null 表示没有半帧
+    private ByteBuffer cumulation;
+
+    protected FrameDecoder(FrameHandler handler) {
+        this.handler = handler;
+    }
+
+    /*
+    buf 从 position 开始是一帧的开头：
+        能确定整帧长度（包括帧头、分隔符）就返回该长度，即使数据还没到齐
+        现有数据还不能确定长度返回 -1
+        长度非法（如超过上限）抛出 IOException，连接会被关闭
+     */
+    protected abstract int frameLength(ByteBuffer buf) throws IOException;
+
+    /*
+    帧头长度，交付时去掉
+     */
+    protected abstract int headerLength();
+
+    /*
+    帧尾长度（例如分隔符），交付时去掉
+     */
+    protected abstract int trailerLength();
+
+    /*
+    还不能确定帧长度时，先从 in 中拷贝多少字节到累积缓冲区再重试
+    默认全部拷贝，子类可以更精确
+     */
+    protected int probeLength(ByteBuffer partial, ByteBuffer in) {
+        return in.remaining();
+    }
+
+    @Override
+    public final void channelRead(Connection connection, ByteBuffer in) throws IOException {
+        frames.clear();
+        boolean cumulationDone = false;
+        if (cumulation != null) {
+            cumulationDone = completeCumulation(in);
+            if (!cumulationDone) {
+                // 半帧还是不完整，本次数据已经全部进入累积缓冲区
+                return;
+            }
+        }
+        // 本次数据中完整的帧直接 slice
+        int n;
+        while (in.hasRemaining() && (n = frameLength(in)) >= 0 && in.remaining() >= n) {
+            frames.add(payload(in, in.position(), n));
+            in.position(in.position() + n);
+        }
+        try {
+            if (!frames.isEmpty()) {
+                handler.onFrames(connection, frames);
+            }
+        } finally {
+            frames.clear();
+        }
+        if (!connection.isOpen()) {
+            // 处理器关闭了连接，累积缓冲区已在 channelInactive 中归还
+            return;
+        }
+        if (cumulationDone) {
+            cumulation.clear();
+        }
+        if (in.hasRemaining()) {
+            // 剩下的半帧
+            n = frameLength(in);
+            ensureCapacity(Math.max(n, in.remaining()));
+            cumulation.put(in);
+        } else if (cumulation != null) {
+            releaseCumulation();
+        }
+    }
+
+    /*
+    用 in 中的数据补齐累积缓冲区中的半帧，补齐了返回 true 并把该帧加入 frames
+     */
+    private boolean completeCumulation(ByteBuffer in) throws IOException {
+        while (true) {
+            ByteBuffer partial = cumulation.duplicate().flip();
+            int n = frameLength(partial);
+            if (n >= 0 && partial.remaining() >= n) {
+                frames.add(payload(partial, 0, n));
+                return true;
+            }
+            if (!in.hasRemaining()) {
+                return false;
+            }
+            int copy = n >= 0 ? n - partial.remaining() : probeLength(partial, in);
+            copy = Math.min(Math.max(copy, 1), in.remaining());
+            ensureCapacity(Math.max(n, partial.remaining() + copy));
+            ByteBuffer src = in.duplicate().limit(in.position() + copy);
+            cumulation.put(src);
+            in.position(in.position() + copy);
+        }
+    }
+
+    private ByteBuffer payload(ByteBuffer buf, int start, int frameLength) {
+        ByteBuffer frame = buf.duplicate();
+        frame.limit(start + frameLength - trailerLength());
+        frame.position(start + headerLength());
+        return frame.slice();
+    }
+
+    /*
+    保证累积缓冲区能放下 size 字节，不够就从池中换一个更大的
+     */
+    private void ensureCapacity(int size) {
+        if (cumulation == null) {
+            cumulation = BufferPool.DEFAULT.acquire(Math.max(size, BufferPool.MIN_SIZE));
+            cumulation.clear();
+        } else if (cumulation.capacity() < size) {
+            ByteBuffer bigger = BufferPool.DEFAULT.acquire(size);
+            bigger.clear();
+            cumulation.flip();
+            bigger.put(cumulation);
+            BufferPool.DEFAULT.release(cumulation);
+            cumulation = bigger;
+        }
+    }
+
+    private void releaseCumulation() {
+        BufferPool.DEFAULT.release(cumulation);
+        cumulation = null;
+    }
+
+    @Override
+    public void channelInactive(Connection connection) {
+        if (cumulation != null) {
+            releaseCumulation();
+        }
+    }
+}
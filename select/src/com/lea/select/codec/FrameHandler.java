@@ -0,0 +1,22 @@
+package com.lea.select.codec;
+
+import com.lea.select.reactor.Connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * 帧处理器：接收 FrameDecoder 解码出来的完整消息
+ *
+ * @author lzc
+ * @create 2026.10.17 11:05
+ */
+public interface FrameHandler {
+
+    /*
+    一次读事件解码出的所有帧，按到达顺序批量交付
+    每个帧都是只包含消息体的 slice（读模式），回调返回后失效，需要保留的话自己拷贝
+     */
+    void onFrames(Connection connection, List<ByteBuffer> frames) throws IOException;
+}
@@ -0,0 +1,60 @@
+package com.lea.select.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 长度前缀帧：[长度 N（大端，2 或 4 字节）][N 字节消息体]，长度不包含帧头本身
+ *
+ * @author lzc
+ * @create 2026.10.17 11:30
+ */
+public class LengthFieldFrameDecoder extends FrameDecoder {
+
+    private final int lengthFieldLength;
+    private final int maxFrameLength;
+
+    public LengthFieldFrameDecoder(FrameHandler handler) {
+        this(handler, 4, 1024 * 1024);
+    }
+
+    public LengthFieldFrameDecoder(FrameHandler handler, int lengthFieldLength, int maxFrameLength) {
+        super(handler);
+        if (lengthFieldLength != 2 && lengthFieldLength != 4) {
+            throw new IllegalArgumentException("lengthFieldLength must be 2 or 4: " + lengthFieldLength);
+        }
+        this.lengthFieldLength = lengthFieldLength;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected int frameLength(ByteBuffer buf) throws IOException {
+        if (buf.remaining() < lengthFieldLength) {
+            return -1;
+        }
+        int pos = buf.position();
+        int length = lengthFieldLength == 4 ? buf.getInt(pos) : buf.getShort(pos) & 0xFFFF;
+        if (length < 0 || length > maxFrameLength) {
+            throw new IOException("frame length " + length + " exceeds " + maxFrameLength);
+        }
+        return lengthFieldLength + length;
+    }
+
+    @Override
+    protected int headerLength() {
+        return lengthFieldLength;
+    }
+
+    @Override
+    protected int trailerLength() {
+        return 0;
+    }
+
+    /*
+    帧头还没读全时，只补齐帧头
+     */
+    @Override
+    protected int probeLength(ByteBuffer partial, ByteBuffer in) {
+        return lengthFieldLength - partial.remaining();
+    }
+}
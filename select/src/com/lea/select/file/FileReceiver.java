@@ -0,0 +1,122 @@
+package com.lea.select.file;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 接收 FileSender 发送的文件：FileChannel.transferFrom() 直接把 socket 中的数据写入文件
+ *
+ *  一、先读 8 字节的文件长度，再按长度接收，不需要对方关闭连接来表示结束
+ *  二、事件循环中：receiveFrom() 没有数据时返回 false，等下一次 OP_READ 再调用；
+ *      receive() 一直接收到结束，非阻塞通道没有数据时在临时的 Selector 上等读就绪
+ *  三、transferFrom() 在没有数据和连接关闭时都返回 0，
+ *      这时用一个字节的探测读区分两种情况，提前关闭抛出 EOFException
+ *
+ * @author lzc
+ * @create 2026.10.17 13:30
+ */
+public class FileReceiver implements Closeable {
+
+    private static final long MAX_CHUNK = 8 * 1024 * 1024;
+
+    private final FileChannel fileChannel;
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+    private final ByteBuffer probe = ByteBuffer.allocate(1);
+    private long size = -1;
+    private long position;
+
+    public FileReceiver(Path path) throws IOException {
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /*
+    尽可能多地接收，全部接收完返回 true；非阻塞通道暂时没有数据时返回 false
+     */
+    public boolean receiveFrom(ReadableByteChannel source) throws IOException {
+        if (size < 0) {
+            while (header.hasRemaining()) {
+                int len = source.read(header);
+                if (len < 0) {
+                    throw new EOFException("connection closed before file header");
+                }
+                if (len == 0) {
+                    return false;
+                }
+            }
+            header.flip();
+            long length = header.getLong();
+            if (length < 0) {
+                throw new IOException("invalid file size " + length);
+            }
+            size = length;
+        }
+        while (position < size) {
+            long n = fileChannel.transferFrom(source, position, Math.min(size - position, MAX_CHUNK));
+            if (n == 0) {
+                if (!probe(source)) {
+                    return false;
+                }
+                continue;
+            }
+            position += n;
+        }
+        return true;
+    }
+
+    /*
+    transferFrom 返回 0 时读一个字节判断：读到数据写入文件返回 true，暂时没有数据返回 false，连接关闭抛异常
+     */
+    private boolean probe(ReadableByteChannel source) throws IOException {
+        probe.clear();
+        int len = source.read(probe);
+        if (len < 0) {
+            throw new EOFException("connection closed at " + position + " of " + size + " bytes");
+        }
+        if (len == 0) {
+            return false;
+        }
+        probe.flip();
+        position += fileChannel.write(probe, position);
+        return true;
+    }
+
+    /*
+    接收整个文件；非阻塞通道在临时的 Selector 上等读就绪
+     */
+    public void receive(ReadableByteChannel source) throws IOException {
+        if (receiveFrom(source)) {
+            return;
+        }
+        try (Selector selector = Readiness.open(source, SelectionKey.OP_READ)) {
+            do {
+                selector.select();
+                selector.selectedKeys().clear();
+            } while (!receiveFrom(source));
+        }
+    }
+
+    public long position() {
+        return position;
+    }
+
+    /*
+    文件长度，还没读到文件头时返回 -1
+     */
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,127 @@
+package com.lea.select.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 零拷贝发送文件：FileChannel.transferTo() 直接把文件交给 socket，
+ * 在 Linux 上走 sendfile，数据不经过用户态缓冲区
+ *
+ *  传输格式：[文件长度 8 字节（大端）][文件内容]，与 FileReceiver 配套
+ *
+ *  一、send() 一直发送到结束：阻塞通道直接写，非阻塞通道写不进去时在临时的 Selector 上等写就绪
+ *  二、事件循环中：transferTo() 在 socket 发送缓冲区满时返回 false，
+ *      记住当前位置，等下一次 OP_WRITE 就绪再调用，直到返回 true
+ *  三、位置用 long 记录，分段调用 transferTo，支持超过 2GB 的文件；发送过程中文件变短抛 IOException
+ *  四、内容已经在内存中（MappedFileCache 缓存的映射）时直接从缓冲区写 socket，不再打开文件
+ *
+ * @author lzc
+ * @create 2026.10.17 13:10
+ */
+public class FileSender implements Closeable {
+
+    // 单次 transferTo 的最大字节数，避免一个连接长时间占用事件循环
+    private static final long MAX_CHUNK = 8 * 1024 * 1024;
+
+    // 从文件发送；从内存发送时为 null
+    private final FileChannel fileChannel;
+    // 从内存发送的内容
+    private final ByteBuffer content;
+    private final long size;
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+    private long position;
+
+    public FileSender(Path path) throws IOException {
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        this.content = null;
+        this.size = fileChannel.size();
+        header.putLong(size);
+        header.flip();
+    }
+
+    /*
+    发送 content 的 position 到 limit 之间的内容，会移动 content 的 position
+     */
+    public FileSender(ByteBuffer content) {
+        this.fileChannel = null;
+        this.content = content;
+        this.size = content.remaining();
+        header.putLong(size);
+        header.flip();
+    }
+
+    /*
+    尽可能多地发送，全部发送完返回 true；非阻塞通道写不进去时返回 false
+     */
+    public boolean transferTo(WritableByteChannel target) throws IOException {
+        while (header.hasRemaining()) {
+            if (target.write(header) == 0) {
+                return false;
+            }
+        }
+        if (content != null) {
+            while (content.hasRemaining()) {
+                int n = target.write(content);
+                if (n == 0) {
+                    return false;
+                }
+                position += n;
+            }
+            return true;
+        }
+        while (position < size) {
+            long n = fileChannel.transferTo(position, Math.min(size - position, MAX_CHUNK), target);
+            if (n <= 0) {
+                // 文件被截短时 transferTo 也返回 0，不能当成写不进去，否则永远等不到结束
+                long current = fileChannel.size();
+                if (current <= position) {
+                    throw new IOException("file shrank to " + current + " bytes while sending " + size + " bytes");
+                }
+                return false;
+            }
+            position += n;
+        }
+        return true;
+    }
+
+    /*
+    发送整个文件，返回时已经全部写入 target；非阻塞通道在临时的 Selector 上等写就绪
+     */
+    public void send(WritableByteChannel target) throws IOException {
+        if (transferTo(target)) {
+            return;
+        }
+        try (Selector selector = Readiness.open(target, SelectionKey.OP_WRITE)) {
+            do {
+                selector.select();
+                selector.selectedKeys().clear();
+            } while (!transferTo(target));
+        }
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isDone() {
+        return !header.hasRemaining() && position == size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileChannel != null) {
+            fileChannel.close();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.lea.select.file;
+
+import com.lea.select.metrics.MetricsSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点文件的内存映射缓存
+ *
+ *  同一个文件发给很多客户端时，每次都重新打开、读取文件；映射一次以后，再发送只是从映射的内存写 socket
+ *
+ *  一、按字节数限制总大小，超过时淘汰最久没有使用的文件（LRU，LinkedHashMap 访问顺序）
+ *  二、文件的修改时间或者长度变了，下一次 get() 重新映射；为了不每次都 stat，同一个文件最多每 revalidate 检查一次
+ *  三、get() 返回映射的只读 duplicate()，每个发送方有自己的 position / limit，互不影响，也不能改写缓存的内容
+ *  四、超过 maxFileSize 的文件不缓存，返回 null，由调用方直接发送文件（FileSender.transferTo）
+ *
+ *  淘汰只是丢掉引用，映射的内存在 GC 回收 MappedByteBuffer 时才释放；正在发送的 duplicate() 仍然引用原映射，所以一直有效。
+ *  文件被原地截断时访问映射会出错（InternalError），更新文件请写新文件再 rename 替换，已有的映射仍然指向旧文件
+ *
+ * @author lzc
+ * @create 2026.10.18 01:30
+ */
+public class MappedFileCache implements MetricsSource {
+
+    private final long maxBytes;
+    private final long maxFileSize;
+    private final long revalidateNanos;
+
+    // 访问顺序的 LinkedHashMap，队头是最久没有使用的；所有访问都在 this 锁内
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public MappedFileCache(long maxBytes) {
+        this(maxBytes, 64 * 1024 * 1024, 1000);
+    }
+
+    public MappedFileCache(long maxBytes, long maxFileSize, long revalidateMillis) {
+        if (maxBytes <= 0 || maxFileSize <= 0 || maxFileSize > Integer.MAX_VALUE || revalidateMillis < 0) {
+            throw new IllegalArgumentException("maxBytes " + maxBytes + ", maxFileSize " + maxFileSize
+                    + ", revalidateMillis " + revalidateMillis);
+        }
+        this.maxBytes = maxBytes;
+        this.maxFileSize = maxFileSize;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMillis);
+    }
+
+    /*
+    文件内容的只读视图（position = 0，limit = 文件长度），文件太大不缓存时返回 null
+     */
+    public ByteBuffer get(Path path) throws IOException {
+        path = path.toAbsolutePath().normalize();
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(path);
+        }
+        if (entry != null) {
+            if (now - entry.checkedNanos < revalidateNanos) {
+                hits.increment();
+                return entry.view();
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                remove(path, entry);
+                throw e;
+            }
+            if (entry.matches(attributes)) {
+                entry.checkedNanos = now;
+                hits.increment();
+                return entry.view();
+            }
+            invalidations.increment();
+            remove(path, entry);
+        }
+        misses.increment();
+        entry = map(path, now);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(path, entry);
+            if (previous != null) {
+                // 其他线程同时映射了同一个文件，用新的替换
+                totalBytes -= previous.size;
+            }
+            totalBytes += entry.size;
+            evict();
+        }
+        return entry.view();
+    }
+
+    /*
+    缓存的文件作为 FileSender 发送，不缓存的文件直接从文件发送
+     */
+    public FileSender sender(Path path) throws IOException {
+        ByteBuffer content = get(path);
+        return content != null ? new FileSender(content) : new FileSender(path);
+    }
+
+    private Entry map(Path path, long now) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = channel.size();
+            if (size > maxFileSize || size > maxBytes) {
+                return null;
+            }
+            // 映射建立以后关闭通道，映射仍然有效
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            // 预先读入页缓存，第一次发送不会因为缺页而卡住
+            mapped.load();
+            return new Entry(mapped, size, attributes.lastModifiedTime().toMillis(), now);
+        }
+    }
+
+    private synchronized void remove(Path path, Entry entry) {
+        if (entries.remove(path, entry)) {
+            totalBytes -= entry.size;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.size;
+            evictions.increment();
+        }
+    }
+
+    /*
+    删除一个文件的缓存，例如知道文件已经更新
+     */
+    public void invalidate(Path path) {
+        path = path.toAbsolutePath().normalize();
+        synchronized (this) {
+            Entry entry = entries.remove(path);
+            if (entry != null) {
+                totalBytes -= entry.size;
+            }
+        }
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void appendMetrics(StringBuilder out) {
+        out.append("mapped_file_cache_hits_total ").append(hits()).append('\n');
+        out.append("mapped_file_cache_misses_total ").append(misses()).append('\n');
+        out.append("mapped_file_cache_evictions_total ").append(evictions()).append('\n');
+        out.append("mapped_file_cache_invalidations_total ").append(invalidations.sum()).append('\n');
+        out.append("mapped_file_cache_bytes ").append(totalBytes()).append('\n');
+        out.append("mapped_file_cache_files ").append(size()).append('\n');
+    }
+
+    private static final class Entry {
+
+        // 只读映射，不直接交给调用方，每次返回 duplicate()
+        private final ByteBuffer mapped;
+        private final long size;
+        private final long lastModified;
+        private volatile long checkedNanos;
+
+        Entry(MappedByteBuffer mapped, long size, long lastModified, long checkedNanos) {
+            this.mapped = mapped.asReadOnlyBuffer();
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checkedNanos = checkedNanos;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+        }
+
+        ByteBuffer view() {
+            return mapped.duplicate();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.lea.select.file;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+
+/**
+ * FileSender.send() / FileReceiver.receive() 在非阻塞通道上等待就绪用的临时 Selector，
+ * 代替 Thread.yield() 空转：对端很慢时调用线程阻塞在 select() 上，不占 CPU
+ *
+ * @author lzc
+ * @create 2026.10.18 09:10
+ */
+final class Readiness {
+
+    private Readiness() {
+    }
+
+    /*
+    打开一个只关注 channel 的 ops 的 Selector，用完关闭即注销。
+    通道可以同时注册在别的 Selector 上；阻塞通道或者不能注册的通道没有进展时不会有就绪事件，直接抛 IOException
+     */
+    static Selector open(Channel channel, int ops) throws IOException {
+        if (!(channel instanceof SelectableChannel) || ((SelectableChannel) channel).isBlocking()) {
+            throw new IOException("channel made no progress: " + channel);
+        }
+        Selector selector = Selector.open();
+        try {
+            ((SelectableChannel) channel).register(selector, ops);
+        } catch (IOException | RuntimeException e) {
+            selector.close();
+            throw e;
+        }
+        return selector;
+    }
+}
@@ -0,0 +1,32 @@
+package com.lea.select.metrics;
+
+import com.lea.buffer.BufferPool;
+
+/**
+ * 缓冲区池的命中 / 未命中次数
+ *
+ * @author lzc
+ * @create 2026.10.17 23:55
+ */
+public class BufferPoolMetrics implements MetricsSource {
+
+    private final String name;
+    private final BufferPool pool;
+
+    public BufferPoolMetrics() {
+        this("default", BufferPool.DEFAULT);
+    }
+
+    public BufferPoolMetrics(String name, BufferPool pool) {
+        this.name = name;
+        this.pool = pool;
+    }
+
+    @Override
+    public void appendMetrics(StringBuilder out) {
+        String label = "{pool=\"" + name + "\"}";
+        ReactorMetrics.append(out, "buffer_pool_hits_total", label, pool.hits());
+        ReactorMetrics.append(out, "buffer_pool_misses_total", label, pool.misses());
+        ReactorMetrics.append(out, "buffer_pool_unpooled_total", label, pool.unpooled());
+    }
+}
@@ -0,0 +1,73 @@
+package com.lea.select.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 拉取式的指标文本接口：GET http://host:port/metrics，每行一个指标（Prometheus 文本格式）
+ *
+ *  用 JDK 自带的 HttpServer，单独一个线程，拉取时才汇总，不影响事件循环
+ *
+ *  curl http://localhost:9899/metrics
+ *
+ * @author lzc
+ * @create 2026.10.17 23:55
+ */
+public class MetricsEndpoint implements Closeable {
+
+    private final HttpServer server;
+    private final List<MetricsSource> sources = new CopyOnWriteArrayList<>();
+
+    public MetricsEndpoint(int port) throws IOException {
+        this(new InetSocketAddress(port));
+    }
+
+    public MetricsEndpoint(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    public MetricsEndpoint register(MetricsSource source) {
+        sources.add(source);
+        return this;
+    }
+
+    public MetricsEndpoint start() {
+        server.start();
+        return this;
+    }
+
+    /*
+    所有来源的指标文本
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        for (MetricsSource source : sources) {
+            source.appendMetrics(out);
+        }
+        return out.toString();
+    }
+
+    public InetSocketAddress localAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
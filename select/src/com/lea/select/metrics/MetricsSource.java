@@ -0,0 +1,15 @@
+package com.lea.select.metrics;
+
+/**
+ * 可以被 MetricsEndpoint 拉取的指标来源
+ *
+ * @author lzc
+ * @create 2026.10.17 23:40
+ */
+public interface MetricsSource {
+
+    /*
+    按文本格式追加指标，每行一个：名称{标签} 值
+     */
+    void appendMetrics(StringBuilder out);
+}
@@ -0,0 +1,285 @@
+package com.lea.select.metrics;
+
+import com.lea.buffer.BufferPool;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件循环的运行指标，通过 ReactorConfig.metrics() 打开，一个服务端的所有事件循环共用一个实例
+ *
+ *  一、计数：LongAdder，每个线程累加到自己的单元，读取时才求和，多个事件循环同时累加不会争同一个缓存行
+ *  二、延迟：HdrHistogram 的 Recorder，记录无锁、不分配内存；读取时取出一段时间内的直方图，累加进总的直方图
+ *      loopLatency：一轮事件循环（处理 IO 事件、到期定时器、任务）花的时间
+ *      taskDelay：其他线程提交任务，到事件循环开始执行这批任务的延迟，按每批中最早提交的任务计算
+ *  三、热路径上只有 LongAdder.add() 和 Recorder.recordValue()，不分配对象，打开指标不会改变被测量的行为
+ *
+ *  读取：JMX（registerMBean()）或者文本（appendMetrics()，见 MetricsEndpoint）
+ *
+ * @author lzc
+ * @create 2026.10.17 23:45
+ */
+public class ReactorMetrics implements ReactorMetricsMXBean, MetricsSource {
+
+    // 延迟上限 1 分钟，超过的按 1 分钟记录
+    private static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final String name;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder wakeups = new LongAdder();
+    private final LongAdder emptyWakeups = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder busyPolls = new LongAdder();
+
+    private final Recorder loopLatency = new Recorder(1, MAX_NANOS, 3);
+    private final Recorder taskDelay = new Recorder(1, MAX_NANOS, 3);
+    // 累计直方图，只在 snapshot() 中访问
+    private final Histogram loopLatencyTotal = new Histogram(1, MAX_NANOS, 3);
+    private final Histogram taskDelayTotal = new Histogram(1, MAX_NANOS, 3);
+    private Histogram loopInterval;
+    private Histogram taskInterval;
+
+    public ReactorMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // ------------------------------ 热路径 ------------------------------
+
+    public void onAccept() {
+        accepted.increment();
+    }
+
+    public void onClose() {
+        closed.increment();
+    }
+
+    public void onRead(int bytes) {
+        reads.increment();
+        bytesRead.add(bytes);
+    }
+
+    public void onWrite(long bytes) {
+        if (bytes > 0) {
+            bytesWritten.add(bytes);
+        }
+    }
+
+    /*
+    一轮事件循环结束：readyKeys 本轮就绪的通道数，work 本轮执行的定时器和任务数，nanos 本轮耗时
+     */
+    public void onLoop(int readyKeys, int work, long nanos) {
+        wakeups.increment();
+        if (readyKeys == 0 && work == 0) {
+            emptyWakeups.increment();
+        }
+        loopLatency.recordValue(Math.min(Math.max(nanos, 1), MAX_NANOS));
+    }
+
+    /*
+    busyPoll 模式下一次阻塞之前空转的 selectNow() 次数
+     */
+    public void onBusyPoll(int iterations) {
+        busyPolls.add(iterations);
+    }
+
+    public void onTasks(int count, long delayNanos) {
+        tasks.add(count);
+        taskDelay.recordValue(Math.min(Math.max(delayNanos, 1), MAX_NANOS));
+    }
+
+    // ------------------------------ 读取 ------------------------------
+
+    /*
+    把 Recorder 中新记录的数据并入累计直方图
+     */
+    private synchronized void snapshot() {
+        loopInterval = loopLatency.getIntervalHistogram(loopInterval);
+        loopLatencyTotal.add(loopInterval);
+        taskInterval = taskDelay.getIntervalHistogram(taskInterval);
+        taskDelayTotal.add(taskInterval);
+    }
+
+    private synchronized double loopPercentile(double percentile) {
+        snapshot();
+        return micros(percentile == 100 ? loopLatencyTotal.getMaxValue() : loopLatencyTotal.getValueAtPercentile(percentile));
+    }
+
+    private synchronized double taskPercentile(double percentile) {
+        snapshot();
+        return micros(percentile == 100 ? taskDelayTotal.getMaxValue() : taskDelayTotal.getValueAtPercentile(percentile));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    /*
+    注册到平台 MBeanServer：com.lea.select:type=ReactorMetrics,name=<name>
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName());
+        } catch (JMException e) {
+            throw new IllegalStateException("register MBean failed: " + name, e);
+        }
+    }
+
+    public void unregisterMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+        } catch (JMException e) {
+            // 没有注册过
+        }
+    }
+
+    private ObjectName objectName() throws JMException {
+        return new ObjectName("com.lea.select:type=ReactorMetrics,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public void appendMetrics(StringBuilder out) {
+        String label = "{name=\"" + name + "\"}";
+        append(out, "reactor_accepted_total", label, getAccepted());
+        append(out, "reactor_closed_total", label, getClosed());
+        append(out, "reactor_active_connections", label, getActiveConnections());
+        append(out, "reactor_bytes_read_total", label, getBytesRead());
+        append(out, "reactor_bytes_written_total", label, getBytesWritten());
+        append(out, "reactor_reads_total", label, getReads());
+        append(out, "reactor_wakeups_total", label, getWakeups());
+        append(out, "reactor_empty_wakeups_total", label, getEmptyWakeups());
+        append(out, "reactor_tasks_total", label, getTasks());
+        append(out, "reactor_busy_polls_total", label, getBusyPolls());
+        synchronized (this) {
+            snapshot();
+            appendHistogram(out, "reactor_loop_latency_micros", name, loopLatencyTotal);
+            appendHistogram(out, "reactor_task_delay_micros", name, taskDelayTotal);
+        }
+    }
+
+    static void append(StringBuilder out, String metric, String label, Object value) {
+        out.append(metric).append(label).append(' ').append(value).append('\n');
+    }
+
+    private static void appendHistogram(StringBuilder out, String metric, String name, Histogram histogram) {
+        for (String quantile : QUANTILES) {
+            append(out, metric, "{name=\"" + name + "\",quantile=\"" + quantile + "\"}",
+                    micros(histogram.getValueAtPercentile(Double.parseDouble(quantile) * 100)));
+        }
+        append(out, metric + "_max", "{name=\"" + name + "\"}", micros(histogram.getMaxValue()));
+        append(out, metric + "_count", "{name=\"" + name + "\"}", histogram.getTotalCount());
+    }
+
+    // ------------------------------ MXBean ------------------------------
+
+    @Override
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    @Override
+    public long getClosed() {
+        return closed.sum();
+    }
+
+    @Override
+    public long getActiveConnections() {
+        return accepted.sum() - closed.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getReads() {
+        return reads.sum();
+    }
+
+    @Override
+    public long getWakeups() {
+        return wakeups.sum();
+    }
+
+    @Override
+    public long getEmptyWakeups() {
+        return emptyWakeups.sum();
+    }
+
+    @Override
+    public double getReadsPerWakeup() {
+        long wakeups = this.wakeups.sum();
+        return wakeups == 0 ? 0 : (double) reads.sum() / wakeups;
+    }
+
+    @Override
+    public long getTasks() {
+        return tasks.sum();
+    }
+
+    @Override
+    public long getBusyPolls() {
+        return busyPolls.sum();
+    }
+
+    @Override
+    public double getLoopLatencyP50Micros() {
+        return loopPercentile(50);
+    }
+
+    @Override
+    public double getLoopLatencyP99Micros() {
+        return loopPercentile(99);
+    }
+
+    @Override
+    public double getLoopLatencyMaxMicros() {
+        return loopPercentile(100);
+    }
+
+    @Override
+    public double getTaskDelayP50Micros() {
+        return taskPercentile(50);
+    }
+
+    @Override
+    public double getTaskDelayP99Micros() {
+        return taskPercentile(99);
+    }
+
+    @Override
+    public double getTaskDelayMaxMicros() {
+        return taskPercentile(100);
+    }
+
+    @Override
+    public long getBufferPoolHits() {
+        return BufferPool.DEFAULT.hits();
+    }
+
+    @Override
+    public long getBufferPoolMisses() {
+        return BufferPool.DEFAULT.misses();
+    }
+}
@@ -0,0 +1,49 @@
+package com.lea.select.metrics;
+
+/**
+ * ReactorMetrics 的 JMX 接口，在 jconsole / VisualVM 的 MBeans 页 com.lea.select 下查看
+ *  延迟都是启动以来的累计分布，单位微秒
+ *
+ * @author lzc
+ * @create 2026.10.17 23:40
+ */
+public interface ReactorMetricsMXBean {
+
+    long getAccepted();
+
+    long getClosed();
+
+    long getActiveConnections();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getReads();
+
+    long getWakeups();
+
+    long getEmptyWakeups();
+
+    double getReadsPerWakeup();
+
+    long getTasks();
+
+    long getBusyPolls();
+
+    double getLoopLatencyP50Micros();
+
+    double getLoopLatencyP99Micros();
+
+    double getLoopLatencyMaxMicros();
+
+    double getTaskDelayP50Micros();
+
+    double getTaskDelayP99Micros();
+
+    double getTaskDelayMaxMicros();
+
+    long getBufferPoolHits();
+
+    long getBufferPoolMisses();
+}
@@ -0,0 +1,216 @@
+package com.lea.select.pool;
+
+import com.lea.select.metrics.MetricsSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端连接池：按目标地址缓存已经建立的 SocketChannel，请求路径上不再有 TCP 握手
+ *
+ *  项目里的客户端每次交换都 SocketChannel.open(address)：阻塞等一次握手，用完关闭，服务端还要多一个 TIME_WAIT。
+ *  连接池的连接借出、归还、再借出，握手只在池子扩容时发生
+ *
+ *  一、建连：非阻塞 connect()，由一个建连线程在 Selector 上等 OP_CONNECT（见 Connector），
+ *      借用方只是等 future；连接超时、连接失败都以 IOException 结束
+ *  二、大小：每个地址 [min, max] 个连接，默认值见 PoolConfig，configure() 可以单独指定；
+ *      后台每隔 maintenanceInterval 关闭空闲超时的连接、补足 min 个连接
+ *  三、借出之前做健康检查（默认 HealthCheck.PEEK），被服务端关掉的连接不会交给借用方
+ *  四、连接用完时借用方按先后排队，最多等 leaseTimeout（见 Endpoint）
+ *
+ *  用法：
+ *      try (PooledChannel pooled = pool.lease(address)) {
+ *          SocketChannel channel = pooled.channel(); ...
+ *      }
+ *  适合一问一答的协议；读到 -1 才算结束的交换（shutdownOutput() 之后读响应）用完连接就没法再用，不适合放进池里
+ *
+ * @author lzc
+ * @create 2026.10.18 03:40
+ */
+public class ChannelPool implements Closeable, MetricsSource {
+
+    private final PoolConfig config;
+    private final Connector connector;
+    private final Map<InetSocketAddress, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder healthCheckFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ChannelPool() throws IOException {
+        this(new PoolConfig());
+    }
+
+    public ChannelPool(PoolConfig config) throws IOException {
+        this.config = config;
+        this.connector = new Connector(this);
+        Thread thread = new Thread(connector, "channel-pool-connector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /*
+    单独指定一个地址的连接数，并立即开始补足 min 个连接（预热）
+     */
+    public void configure(InetSocketAddress address, int min, int max) {
+        if (min < 0 || max <= 0 || min > max) {
+            throw new IllegalArgumentException("connections: min " + min + ", max " + max);
+        }
+        Endpoint endpoint = endpoints.computeIfAbsent(address, a -> new Endpoint(a, this, min, max));
+        endpoint.resize(min, max);
+        connector.execute(() -> endpoint.maintain(System.nanoTime()));
+    }
+
+    /*
+    异步借用连接。future 可能在建连线程中完成，后续处理不要阻塞
+     */
+    public CompletableFuture<PooledChannel> leaseAsync(InetSocketAddress address) {
+        return endpoints.computeIfAbsent(address,
+                a -> new Endpoint(a, this, config.minConnections(), config.maxConnections())).lease();
+    }
+
+    /*
+    借用连接，阻塞直到拿到连接、建连失败或者排队超时
+     */
+    public PooledChannel lease(InetSocketAddress address) throws IOException {
+        CompletableFuture<PooledChannel> future = leaseAsync(address);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 不再等待；之后才拿到的连接直接归还
+            if (!future.cancel(false)) {
+                future.thenAccept(PooledChannel::close);
+            }
+            throw new InterruptedIOException("lease interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new SocketTimeoutException("no connection to " + address + " available in "
+                        + config.leaseTimeoutMillis() + " ms");
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    boolean isHealthy(PooledChannel channel) {
+        HealthCheck check = config.healthCheck();
+        if (check == null) {
+            return true;
+        }
+        boolean healthy;
+        try {
+            healthy = check.isHealthy(channel.channel());
+        } catch (IOException e) {
+            healthy = false;
+        }
+        if (!healthy) {
+            healthCheckFailures.increment();
+        }
+        return healthy;
+    }
+
+    /*
+    后台维护，在建连线程中执行
+     */
+    void maintain() {
+        long now = System.nanoTime();
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.maintain(now);
+        }
+    }
+
+    PoolConfig config() {
+        return config;
+    }
+
+    Connector connector() {
+        return connector;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void onLease() {
+        leases.increment();
+    }
+
+    void onConnect() {
+        connects.increment();
+    }
+
+    void onConnectFailure() {
+        connectFailures.increment();
+    }
+
+    void onEvict() {
+        evictions.increment();
+    }
+
+    /*
+    借出次数、实际建立的连接数；两者的差就是省掉的握手
+     */
+    public long leases() {
+        return leases.sum();
+    }
+
+    public long connects() {
+        return connects.sum();
+    }
+
+    public int idleCount(InetSocketAddress address) {
+        Endpoint endpoint = endpoints.get(address);
+        return endpoint == null ? 0 : endpoint.idleCount();
+    }
+
+    public int totalCount(InetSocketAddress address) {
+        Endpoint endpoint = endpoints.get(address);
+        return endpoint == null ? 0 : endpoint.totalCount();
+    }
+
+    @Override
+    public void appendMetrics(StringBuilder out) {
+        out.append("channel_pool_leases_total ").append(leases()).append('\n');
+        out.append("channel_pool_connects_total ").append(connects()).append('\n');
+        out.append("channel_pool_connect_failures_total ").append(connectFailures.sum()).append('\n');
+        out.append("channel_pool_health_check_failures_total ").append(healthCheckFailures.sum()).append('\n');
+        out.append("channel_pool_evictions_total ").append(evictions.sum()).append('\n');
+        for (Endpoint endpoint : endpoints.values()) {
+            String label = "{endpoint=\"" + endpoint.address.getHostString() + ":" + endpoint.address.getPort() + "\"}";
+            out.append("channel_pool_connections").append(label).append(' ').append(endpoint.totalCount()).append('\n');
+            out.append("channel_pool_idle_connections").append(label).append(' ').append(endpoint.idleCount()).append('\n');
+            out.append("channel_pool_waiters").append(label).append(' ').append(endpoint.waiterCount()).append('\n');
+        }
+    }
+
+    /*
+    关闭连接池：空闲连接立即关闭，排队的借用方失败，借出的连接归还时关闭
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        connector.close();
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.close();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.lea.select.pool;
+
+import com.lea.select.reactor.HashedWheelTimer;
+import com.lea.select.reactor.MpscQueue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 连接池的建连线程：非阻塞 connect()，在自己的 Selector 上等 OP_CONNECT，再 finishConnect()
+ *
+ *  SocketChannel.open(address) 是阻塞连接，调用线程要等一次 TCP 握手；这里借用方只提交任务，
+ *  一个线程同时建立任意多个连接，连接超时由时间轮检查，后台维护也作为时间轮上的定时任务执行
+ *
+ *  连接建立之后取消 SelectionKey，并立即 selectNow() 把取消的键从 Selector 上注销，
+ *  否则通道切换回阻塞模式时会抛 IllegalBlockingModeException
+ *
+ *  任务队列和唤醒方式同 EventLoop：MpscQueue + 合并的 wakeup()
+ *
+ * @author lzc
+ * @create 2026.10.18 03:40
+ */
+class Connector implements Runnable, Closeable {
+
+    private final ChannelPool pool;
+    private final Selector selector;
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 1024);
+    private final MpscQueue<Runnable> tasks = new MpscQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    // 本轮建立好的连接，注销 SelectionKey 之后再交出去
+    private final List<Attempt> connected = new ArrayList<>();
+    private volatile boolean running = true;
+
+    Connector(ChannelPool pool) throws IOException {
+        this.pool = pool;
+        this.selector = Selector.open();
+    }
+
+    /*
+    为 endpoint 建立一个连接，名额已经由调用方占用；可以在任意线程调用
+     */
+    void connect(Endpoint endpoint, CompletableFuture<PooledChannel> future) {
+        ConnectTask task = new ConnectTask(endpoint, future);
+        execute(task);
+        if (!running) {
+            // 与 close() 同时发生，任务可能排在 closeAll() 最后一次执行队列之后，永远不会执行
+            task.reject();
+        }
+    }
+
+    void execute(Runnable task) {
+        tasks.offer(task);
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        scheduleMaintenance();
+        try {
+            while (running) {
+                wakeupPending.set(false);
+                if (tasks.isEmpty()) {
+                    long timeoutNanos = timer.nanosUntilNextTick(System.nanoTime());
+                    long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos + 999_999);
+                    if (timeoutNanos < 0) {
+                        selector.select();
+                    } else if (timeoutMillis == 0) {
+                        selector.selectNow();
+                    } else {
+                        selector.select(timeoutMillis);
+                    }
+                } else {
+                    selector.selectNow();
+                }
+                processSelectedKeys();
+                timer.expire(System.nanoTime());
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    runTask(task);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            // 出错退出时也要先于最后一次执行队列设置：之后才入队的任务，connect() 一定能看到 running 为 false
+            running = false;
+            closeAll();
+        }
+    }
+
+    private void scheduleMaintenance() {
+        timer.schedule(() -> {
+            if (running) {
+                pool.maintain();
+                scheduleMaintenance();
+            }
+        }, pool.config().maintenanceIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void connectNow(Endpoint endpoint, CompletableFuture<PooledChannel> future) {
+        if (!running) {
+            endpoint.connectFailed(future, new ClosedChannelException());
+            return;
+        }
+        Attempt attempt = new Attempt(endpoint, future);
+        try {
+            attempt.channel = SocketChannel.open();
+            attempt.channel.configureBlocking(false);
+            attempt.channel.setOption(StandardSocketOptions.TCP_NODELAY, pool.config().tcpNoDelay());
+            if (attempt.channel.connect(endpoint.address)) {
+                // 本机连接可能立即完成
+                handOver(attempt);
+                return;
+            }
+            attempt.key = attempt.channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+        } catch (IOException e) {
+            fail(attempt, e);
+            return;
+        }
+        attempt.timeout = timer.schedule(() -> fail(attempt, new SocketTimeoutException(
+                "connect to " + endpoint.address + " timed out")), pool.config().connectTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void processSelectedKeys() throws IOException {
+        do {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Attempt attempt = (Attempt) key.attachment();
+                if (!key.isValid() || !key.isConnectable()) {
+                    continue;
+                }
+                try {
+                    if (attempt.channel.finishConnect()) {
+                        key.cancel();
+                        attempt.timeout.cancel();
+                        connected.add(attempt);
+                    }
+                } catch (IOException e) {
+                    fail(attempt, e);
+                }
+            }
+            if (connected.isEmpty()) {
+                return;
+            }
+            // 注销取消的键；这次 selectNow() 新选出来的键在下一圈处理
+            selector.selectNow();
+            for (Attempt attempt : connected) {
+                handOver(attempt);
+            }
+            connected.clear();
+        } while (!selector.selectedKeys().isEmpty());
+    }
+
+    private void handOver(Attempt attempt) {
+        PooledChannel channel = new PooledChannel(attempt.channel, attempt.endpoint);
+        try {
+            attempt.channel.configureBlocking(pool.config().blocking());
+        } catch (IOException e) {
+            fail(attempt, e);
+            return;
+        }
+        pool.onConnect();
+        attempt.endpoint.connected(channel, attempt.future);
+    }
+
+    private void fail(Attempt attempt, IOException cause) {
+        if (attempt.failed) {
+            return;
+        }
+        attempt.failed = true;
+        if (attempt.key != null) {
+            attempt.key.cancel();
+        }
+        if (attempt.timeout != null) {
+            attempt.timeout.cancel();
+        }
+        if (attempt.channel != null) {
+            try {
+                attempt.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        pool.onConnectFailure();
+        attempt.endpoint.connectFailed(attempt.future, cause);
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void closeAll() {
+        // 还没执行的建连任务以 ClosedChannelException 结束
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            runTask(task);
+        }
+        for (SelectionKey key : selector.keys()) {
+            fail((Attempt) key.attachment(), new ClosedChannelException());
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /*
+    建连任务：线程停止时可能不会执行，由 connect() 拒绝；执行和拒绝只有一个生效，名额只让出一次
+     */
+    private final class ConnectTask implements Runnable {
+
+        private final Endpoint endpoint;
+        private final CompletableFuture<PooledChannel> future;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        ConnectTask(Endpoint endpoint, CompletableFuture<PooledChannel> future) {
+            this.endpoint = endpoint;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                connectNow(endpoint, future);
+            }
+        }
+
+        void reject() {
+            if (claimed.compareAndSet(false, true)) {
+                endpoint.connectFailed(future, new ClosedChannelException());
+            }
+        }
+    }
+
+    /*
+    一次建连
+     */
+    private static final class Attempt {
+
+        final Endpoint endpoint;
+        // 借用方，null 表示补足最小连接数
+        final CompletableFuture<PooledChannel> future;
+        SocketChannel channel;
+        SelectionKey key;
+        HashedWheelTimer.Timeout timeout;
+        boolean failed;
+
+        Attempt(Endpoint endpoint, CompletableFuture<PooledChannel> future) {
+            this.endpoint = endpoint;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.lea.select.pool;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一个目标地址的连接：空闲连接、等待的借用方和连接计数，所有字段都用 this 加锁
+ *
+ *  一、空闲连接后进先出：最近归还的先借出，它最不可能已经被对端关闭；长时间没人用的沉在队尾，由后台维护淘汰
+ *  二、公平等待：连接数到上限时借用方按先后排队，归还的连接直接交给队头，有人排队时新的借用方不能插队拿空闲连接
+ *  三、total 包括正在建立的连接，名额在发起连接之前占用，连接失败或者关闭时让出，并为排队的借用方发起新连接
+ *
+ *  健康检查、关闭通道、完成 future 都在锁外进行
+ *
+ * @author lzc
+ * @create 2026.10.18 03:40
+ */
+class Endpoint {
+
+    final InetSocketAddress address;
+    private final ChannelPool pool;
+    private int min;
+    private int max;
+
+    // 空闲连接，队头是最近归还的
+    private final ArrayDeque<PooledChannel> idle = new ArrayDeque<>();
+    // 排队的借用方，先来先得
+    private final ArrayDeque<CompletableFuture<PooledChannel>> waiters = new ArrayDeque<>();
+    // 空闲 + 借出 + 正在建立的连接数
+    private int total;
+
+    Endpoint(InetSocketAddress address, ChannelPool pool, int min, int max) {
+        this.address = address;
+        this.pool = pool;
+        this.min = min;
+        this.max = max;
+    }
+
+    synchronized void resize(int min, int max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    CompletableFuture<PooledChannel> lease() {
+        CompletableFuture<PooledChannel> future = new CompletableFuture<>();
+        while (true) {
+            PooledChannel channel;
+            boolean connect = false;
+            synchronized (this) {
+                if (pool.isClosed()) {
+                    future.completeExceptionally(new ClosedChannelException());
+                    return future;
+                }
+                channel = waiters.isEmpty() ? idle.pollFirst() : null;
+                if (channel != null) {
+                    channel.leased = true;
+                } else if (total < max) {
+                    total++;
+                    connect = true;
+                } else {
+                    waiters.addLast(future);
+                }
+            }
+            if (channel != null) {
+                if (pool.isHealthy(channel)) {
+                    pool.onLease();
+                    future.complete(channel);
+                    return future;
+                }
+                // 不健康的连接关掉，再试下一个
+                discard(channel);
+                continue;
+            }
+            if (connect) {
+                pool.connector().connect(this, future);
+            } else {
+                long timeout = pool.config().leaseTimeoutMillis();
+                if (timeout > 0) {
+                    future.orTimeout(timeout, TimeUnit.MILLISECONDS).whenComplete((c, cause) -> {
+                        if (cause instanceof TimeoutException) {
+                            removeWaiter(future);
+                        }
+                    });
+                }
+            }
+            return future;
+        }
+    }
+
+    private synchronized void removeWaiter(CompletableFuture<PooledChannel> future) {
+        waiters.remove(future);
+    }
+
+    /*
+    连接建立成功。future 为 null 表示后台补足最小连接数，或者借用方已经不等了，连接放进池里
+     */
+    void connected(PooledChannel channel, CompletableFuture<PooledChannel> future) {
+        synchronized (this) {
+            channel.leased = true;
+        }
+        if (future != null && future.complete(channel)) {
+            pool.onLease();
+            return;
+        }
+        release(channel);
+    }
+
+    /*
+    连接建立失败，让出名额
+     */
+    void connectFailed(CompletableFuture<PooledChannel> future, IOException cause) {
+        synchronized (this) {
+            total--;
+        }
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+        connectForWaiters();
+    }
+
+    /*
+    归还：有人排队就直接交给队头，否则放进空闲队列
+     */
+    void release(PooledChannel channel) {
+        if (!channel.channel().isOpen()) {
+            discard(channel);
+            return;
+        }
+        while (true) {
+            CompletableFuture<PooledChannel> waiter;
+            synchronized (this) {
+                if (!channel.leased) {
+                    return;
+                }
+                if (pool.isClosed()) {
+                    break;
+                }
+                channel.lastUsedNanos = System.nanoTime();
+                waiter = waiters.pollFirst();
+                if (waiter == null) {
+                    channel.leased = false;
+                    idle.addFirst(channel);
+                    return;
+                }
+            }
+            // 等待超时的借用方 complete() 返回 false，交给下一个
+            if (waiter.complete(channel)) {
+                pool.onLease();
+                return;
+            }
+        }
+        discard(channel);
+    }
+
+    /*
+    关闭连接并让出名额
+     */
+    void discard(PooledChannel channel) {
+        synchronized (this) {
+            if (!channel.leased) {
+                return;
+            }
+            channel.leased = false;
+            total--;
+        }
+        close(channel);
+        connectForWaiters();
+    }
+
+    /*
+    名额空出来之后，为排队的借用方发起新连接
+     */
+    private void connectForWaiters() {
+        while (true) {
+            CompletableFuture<PooledChannel> waiter;
+            synchronized (this) {
+                if (pool.isClosed() || waiters.isEmpty() || total >= max) {
+                    return;
+                }
+                waiter = waiters.pollFirst();
+                if (waiter.isDone()) {
+                    continue;
+                }
+                total++;
+            }
+            pool.connector().connect(this, waiter);
+        }
+    }
+
+    /*
+    后台维护：关闭空闲太久的连接（保留 min 个），补足 min 个连接
+     */
+    void maintain(long nowNanos) {
+        List<PooledChannel> evicted = new ArrayList<>();
+        int connects;
+        synchronized (this) {
+            long idleTimeout = TimeUnit.MILLISECONDS.toNanos(pool.config().idleTimeoutMillis());
+            if (idleTimeout > 0) {
+                // 队尾是最久没用的
+                Iterator<PooledChannel> it = idle.descendingIterator();
+                while (it.hasNext() && total > min) {
+                    PooledChannel channel = it.next();
+                    if (nowNanos - channel.lastUsedNanos < idleTimeout) {
+                        break;
+                    }
+                    it.remove();
+                    total--;
+                    evicted.add(channel);
+                }
+            }
+            connects = pool.isClosed() ? 0 : Math.max(0, min - total);
+            total += connects;
+        }
+        for (PooledChannel channel : evicted) {
+            pool.onEvict();
+            close(channel);
+        }
+        for (int i = 0; i < connects; i++) {
+            pool.connector().connect(this, null);
+        }
+    }
+
+    /*
+    连接池关闭：关闭空闲连接，排队的借用方失败；借出的连接归还时关闭
+     */
+    void close() {
+        List<PooledChannel> channels;
+        List<CompletableFuture<PooledChannel>> pending;
+        synchronized (this) {
+            channels = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            pending = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        for (PooledChannel channel : channels) {
+            close(channel);
+        }
+        for (CompletableFuture<PooledChannel> waiter : pending) {
+            waiter.completeExceptionally(new ClosedChannelException());
+        }
+    }
+
+    private static void close(PooledChannel channel) {
+        try {
+            channel.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    synchronized int idleCount() {
+        return idle.size();
+    }
+
+    synchronized int totalCount() {
+        return total;
+    }
+
+    synchronized int waiterCount() {
+        return waiters.size();
+    }
+}
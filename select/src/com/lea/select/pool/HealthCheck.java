@@ -0,0 +1,39 @@
+package com.lea.select.pool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 借出连接之前的健康检查，返回 false 或者抛出异常时关闭这个连接，换一个或者重新建立
+ *
+ * @author lzc
+ * @create 2026.10.18 03:40
+ */
+@FunctionalInterface
+public interface HealthCheck {
+
+    /*
+    默认检查：非阻塞地读一个字节，不发送任何数据，只多一次 read 系统调用
+        返回 0     没有数据，连接正常
+        返回 -1    对端已经关闭（例如服务端的空闲超时关掉了连接），不能再用
+        读到数据   空闲连接上不应该有数据，协议状态已经乱了，也不能再用
+        抛出异常   连接被重置
+    阻塞模式的通道检查时临时切换成非阻塞，检查完再切换回来
+     */
+    HealthCheck PEEK = channel -> {
+        boolean blocking = channel.isBlocking();
+        if (blocking) {
+            channel.configureBlocking(false);
+        }
+        try {
+            return channel.read(ByteBuffer.allocate(1)) == 0;
+        } finally {
+            if (blocking && channel.isOpen()) {
+                channel.configureBlocking(true);
+            }
+        }
+    };
+
+    boolean isHealthy(SocketChannel channel) throws IOException;
+}
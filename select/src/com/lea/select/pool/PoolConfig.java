@@ -0,0 +1,121 @@
+package com.lea.select.pool;
+
+/**
+ * 连接池配置，大小是每个目标地址（endpoint）各自的，可以用 ChannelPool.configure() 单独指定
+ *
+ * @author lzc
+ * @create 2026.10.18 03:40
+ */
+public class PoolConfig {
+
+    // 每个地址至少保持的连接数，后台维护时补足
+    private int minConnections;
+    // 每个地址最多的连接数（空闲 + 借出 + 正在建立），用完之后借用方排队等待
+    private int maxConnections = 8;
+    // 建立连接的超时
+    private long connectTimeoutMillis = 3000;
+    // 连接用完时最多排队等待多久，0 表示一直等
+    private long leaseTimeoutMillis = 3000;
+    // 空闲超过这个时间的连接关闭（保留 minConnections 个），0 表示不关闭
+    private long idleTimeoutMillis = 60_000;
+    // 后台维护（空闲淘汰、补足最小连接数）的间隔
+    private long maintenanceIntervalMillis = 1000;
+    // 借出之前的健康检查，null 表示不检查
+    private HealthCheck healthCheck = HealthCheck.PEEK;
+    // 借出的通道是否是阻塞模式
+    private boolean blocking = true;
+    // 关闭 Nagle 算法，小请求立即发出
+    private boolean tcpNoDelay = true;
+
+    public int minConnections() {
+        return minConnections;
+    }
+
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    public PoolConfig connections(int min, int max) {
+        if (min < 0 || max <= 0 || min > max) {
+            throw new IllegalArgumentException("connections: min " + min + ", max " + max);
+        }
+        this.minConnections = min;
+        this.maxConnections = max;
+        return this;
+    }
+
+    public long connectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public PoolConfig connectTimeoutMillis(long connectTimeoutMillis) {
+        if (connectTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("connectTimeoutMillis: " + connectTimeoutMillis);
+        }
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    public long leaseTimeoutMillis() {
+        return leaseTimeoutMillis;
+    }
+
+    public PoolConfig leaseTimeoutMillis(long leaseTimeoutMillis) {
+        if (leaseTimeoutMillis < 0) {
+            throw new IllegalArgumentException("leaseTimeoutMillis: " + leaseTimeoutMillis);
+        }
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        return this;
+    }
+
+    public long idleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public PoolConfig idleTimeoutMillis(long idleTimeoutMillis) {
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis: " + idleTimeoutMillis);
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public long maintenanceIntervalMillis() {
+        return maintenanceIntervalMillis;
+    }
+
+    public PoolConfig maintenanceIntervalMillis(long maintenanceIntervalMillis) {
+        if (maintenanceIntervalMillis <= 0) {
+            throw new IllegalArgumentException("maintenanceIntervalMillis: " + maintenanceIntervalMillis);
+        }
+        this.maintenanceIntervalMillis = maintenanceIntervalMillis;
+        return this;
+    }
+
+    public HealthCheck healthCheck() {
+        return healthCheck;
+    }
+
+    public PoolConfig healthCheck(HealthCheck healthCheck) {
+        this.healthCheck = healthCheck;
+        return this;
+    }
+
+    public boolean blocking() {
+        return blocking;
+    }
+
+    public PoolConfig blocking(boolean blocking) {
+        this.blocking = blocking;
+        return this;
+    }
+
+    public boolean tcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public PoolConfig tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+}
@@ -0,0 +1,53 @@
+package com.lea.select.pool;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 从连接池借出的连接，用完 close() 归还（而不是关闭），所以可以直接放在 try-with-resources 里
+ *
+ *  归还时连接上不能有没读完的响应，否则下一个借用方会读到上一次的数据（健康检查会发现并丢弃它）。
+ *  读写出错、协议状态不确定时调用 invalidate()，连接被关闭，池中的名额让给新连接。
+ *  借出期间不要把通道注册到别的 Selector 上，也不要关闭它
+ *
+ * @author lzc
+ * @create 2026.10.18 03:40
+ */
+public final class PooledChannel implements Closeable {
+
+    private final SocketChannel channel;
+    final Endpoint endpoint;
+    // 以下字段都用 endpoint 加锁
+    boolean leased;
+    // 最后一次归还的时间
+    long lastUsedNanos;
+
+    PooledChannel(SocketChannel channel, Endpoint endpoint) {
+        this.channel = channel;
+        this.endpoint = endpoint;
+    }
+
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    public InetSocketAddress endpoint() {
+        return endpoint.address;
+    }
+
+    /*
+    归还给连接池，重复调用无效
+     */
+    @Override
+    public void close() {
+        endpoint.release(this);
+    }
+
+    /*
+    关闭连接，不再归还
+     */
+    public void invalidate() {
+        endpoint.discard(this);
+    }
+}
@@ -0,0 +1,46 @@
+package com.lea.select.reactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 连接事件回调
+ *  每个连接都会通过工厂创建一个独立的实例，所有回调都在该连接所属的事件循环线程中执行，
+ *  因此实现类可以直接保存本连接的状态而不需要加锁
+ *
+ * @author lzc
+ * @create 2026.10.17 09:12
+ */
+public interface ChannelHandler {
+
+    /*
+    连接注册到事件循环之后调用
+     */
+    default void channelActive(Connection connection) throws IOException {
+    }
+
+    /*
+    读到数据，buffer 处于读模式；buffer 回调返回后归还缓冲区池，内容失效，需要保留的数据要拷贝出来
+     */
+    void channelRead(Connection connection, ByteBuffer buffer) throws IOException;
+
+    /*
+    出站队列越过高水位（不可写）或回落到低水位以下（可写）时调用，通过 connection.isWritable() 判断
+     */
+    default void channelWritabilityChanged(Connection connection) throws IOException {
+    }
+
+    /*
+    连接超时（见 ReactorConfig 的各种超时配置），默认直接关闭连接；
+    覆盖后不关闭的话，同一种超时过了同样长的时间还会再次回调
+     */
+    default void channelTimeout(Connection connection, ConnectionTimeout timeout) throws IOException {
+        connection.close();
+    }
+
+    /*
+    连接关闭之后调用
+     */
+    default void channelInactive(Connection connection) {
+    }
+}
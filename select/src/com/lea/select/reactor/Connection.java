@@ -0,0 +1,369 @@
+package com.lea.select.reactor;
+
+import com.lea.buffer.AdaptiveRecvAllocator;
+import com.lea.buffer.BufferPool;
+import com.lea.buffer.CompositeByteBuffer;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个客户端连接：SocketChannel 与其所属事件循环、处理器的绑定关系，作为 SelectionKey 的附件
+ *
+ *  写数据：
+ *      非阻塞通道的 write() 可能只写进去一部分，剩下的拷贝到出站队列（缓冲区来自 BufferPool），
+ *      并注册 OP_WRITE，写就绪时用聚集写入 write(ByteBuffer[]) 一次写出多个缓冲区
+ *
+ *  背压：
+ *      出站队列超过高水位时暂停读取本连接（取消 OP_READ），对端发得再快也不会让队列无限增长；
+ *      写到低水位以下再恢复读取。两种变化都会回调 ChannelHandler.channelWritabilityChanged()
+ *
+ *  超时：
+ *      每个连接在事件循环的时间轮上最多挂一个定时任务，到期时检查最后一次读 / 写的时间，
+ *      超时就回调 ChannelHandler.channelTimeout()，没超时就按最近的截止时间重新挂上。
+ *      读写时只记录时间，不操作时间轮
+ *
+ *  除 remoteAddress()/isOpen()/send() 外，所有方法都必须在所属事件循环线程中调用
+ *
+ * @author lzc
+ * @create 2026.10.17 09:15
+ */
+public class Connection {
+
+    // 出站队列中单个缓冲区的最大大小
+    private static final int MAX_CHUNK = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final EventLoop eventLoop;
+    private final ChannelHandler handler;
+    private SelectionKey key;
+    // 下一次读用多大的缓冲区
+    private final AdaptiveRecvAllocator.Handle recvHandle;
+
+    // 出站队列，缓冲区都处于读模式
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    // 聚集写入时复用的数组
+    private final ByteBuffer[] gather = new ByteBuffer[16];
+    private long pendingBytes;
+    private boolean writable = true;
+
+    // 最后一次读到数据的时间
+    private long lastReadNanos;
+    // 最后一次写出数据、或者出站队列由空变为非空的时间
+    private long lastWriteNanos;
+    private HashedWheelTimer.Timeout timeout;
+
+    Connection(SocketChannel channel, EventLoop eventLoop, ChannelHandler handler, AdaptiveRecvAllocator.Handle recvHandle) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.handler = handler;
+        this.recvHandle = recvHandle;
+    }
+
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    public EventLoop eventLoop() {
+        return eventLoop;
+    }
+
+    public SocketAddress remoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /*
+    写数据：先尝试直接写，没写完的部分拷贝进出站队列。方法返回后 data 可以立即复用
+     */
+    public void write(ByteBuffer data) throws IOException {
+        ensureOpen();
+        if (outbound.isEmpty()) {
+            lastWriteNanos = eventLoop.now();
+            eventLoop.onWrite(channel.write(data));
+        }
+        enqueue(data);
+        afterEnqueue();
+    }
+
+    /*
+    聚集写入多个缓冲区，例如消息头 + 消息体
+     */
+    public void write(ByteBuffer... data) throws IOException {
+        ensureOpen();
+        if (outbound.isEmpty()) {
+            lastWriteNanos = eventLoop.now();
+            eventLoop.onWrite(channel.write(data));
+        }
+        for (ByteBuffer buffer : data) {
+            enqueue(buffer);
+        }
+        afterEnqueue();
+    }
+
+    /*
+    聚集写入组合缓冲区的可读部分，写完后 readerIndex 移到末尾；引用计数由调用方管理，方法返回后即可 release()
+     */
+    public void write(CompositeByteBuffer data) throws IOException {
+        write(data.nioBuffers());
+        data.skip(data.readableBytes());
+    }
+
+    /*
+    可以在任意线程调用的 write()：不在事件循环线程时，把数据拷贝一份作为任务交给事件循环写出，
+    多个线程同时发送、多次发送都只唤醒事件循环一次（见 EventLoop.execute()）。
+    写出失败时关闭连接，连接已关闭时数据被丢弃
+     */
+    public void send(ByteBuffer data) {
+        if (eventLoop.inEventLoop()) {
+            writeOrClose(data);
+            return;
+        }
+        ByteBuffer copy = BufferPool.DEFAULT.acquire(data.remaining());
+        copy.put(data);
+        copy.flip();
+        eventLoop.execute(() -> {
+            try {
+                writeOrClose(copy);
+            } finally {
+                BufferPool.DEFAULT.release(copy);
+            }
+        });
+    }
+
+    private void writeOrClose(ByteBuffer data) {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            write(data);
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /*
+    出站队列是否低于高水位，生产者可以据此决定是否继续写
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /*
+    出站队列中还没写出的字节数
+     */
+    public long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /*
+    暂停 / 恢复读取本连接，例如转发场景中目标连接不可写时暂停源连接
+     */
+    public void pauseRead() {
+        if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+    }
+
+    public void resumeRead() {
+        if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    /*
+    关闭连接，重复调用无副作用；出站队列中没写出的数据直接丢弃
+     */
+    public void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        ByteBuffer buffer;
+        while ((buffer = outbound.poll()) != null) {
+            BufferPool.DEFAULT.release(buffer);
+        }
+        pendingBytes = 0;
+        eventLoop.onClose();
+        handler.channelInactive(this);
+    }
+
+    /*
+    OP_WRITE 就绪：聚集写入出站队列中的缓冲区，直到写完或者写不进去
+     */
+    void flush() throws IOException {
+        while (!outbound.isEmpty()) {
+            int n = 0;
+            for (ByteBuffer buffer : outbound) {
+                if (n == gather.length) {
+                    break;
+                }
+                gather[n++] = buffer;
+            }
+            long written = channel.write(gather, 0, n);
+            Arrays.fill(gather, 0, n, null);
+            pendingBytes -= written;
+            eventLoop.onWrite(written);
+            if (written > 0) {
+                lastWriteNanos = eventLoop.now();
+            }
+            while (!outbound.isEmpty() && !outbound.peek().hasRemaining()) {
+                BufferPool.DEFAULT.release(outbound.poll());
+            }
+            if (written == 0 || !outbound.isEmpty() && n < gather.length) {
+                // 内核发送缓冲区满了
+                break;
+            }
+        }
+        if (outbound.isEmpty() && key.isValid()) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+        if (!writable && pendingBytes <= eventLoop.config().writeLowWaterMark()) {
+            writable = true;
+            resumeRead();
+            handler.channelWritabilityChanged(this);
+        }
+    }
+
+    private void enqueue(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            int n = Math.min(data.remaining(), MAX_CHUNK);
+            ByteBuffer src = data.duplicate();
+            src.limit(src.position() + n);
+            ByteBuffer copy = BufferPool.DEFAULT.acquire(n);
+            copy.put(src);
+            copy.flip();
+            data.position(data.position() + n);
+            outbound.offer(copy);
+            pendingBytes += n;
+        }
+    }
+
+    private void afterEnqueue() throws IOException {
+        if (outbound.isEmpty()) {
+            return;
+        }
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        if (writable && pendingBytes > eventLoop.config().writeHighWaterMark()) {
+            writable = false;
+            pauseRead();
+            handler.channelWritabilityChanged(this);
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /*
+    注册到事件循环之后开始计时
+     */
+    void startTimeouts() {
+        lastReadNanos = lastWriteNanos = eventLoop.now();
+        scheduleTimeout(eventLoop.now());
+    }
+
+    void onRead(long nowNanos) {
+        lastReadNanos = nowNanos;
+    }
+
+    /*
+    按最近的截止时间挂上定时任务，没有配置超时则什么也不做
+     */
+    private void scheduleTimeout(long nowNanos) {
+        ReactorConfig config = eventLoop.config();
+        if (!config.timeoutsEnabled()) {
+            return;
+        }
+        long deadline = Long.MAX_VALUE;
+        if (config.readTimeoutMillis() > 0) {
+            deadline = Math.min(deadline, lastReadNanos + TimeUnit.MILLISECONDS.toNanos(config.readTimeoutMillis()));
+        }
+        if (config.writeTimeoutMillis() > 0 && !outbound.isEmpty()) {
+            deadline = Math.min(deadline, lastWriteNanos + TimeUnit.MILLISECONDS.toNanos(config.writeTimeoutMillis()));
+        }
+        if (config.idleTimeoutMillis() > 0) {
+            deadline = Math.min(deadline, Math.max(lastReadNanos, lastWriteNanos)
+                    + TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMillis()));
+        }
+        if (deadline == Long.MAX_VALUE) {
+            // 只配置了写超时，且出站队列为空：按写超时的间隔再来检查
+            deadline = nowNanos + TimeUnit.MILLISECONDS.toNanos(config.writeTimeoutMillis());
+        }
+        timeout = eventLoop.timer().schedule(this::checkTimeouts, deadline - nowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void checkTimeouts() {
+        timeout = null;
+        if (!channel.isOpen()) {
+            return;
+        }
+        ReactorConfig config = eventLoop.config();
+        long now = System.nanoTime();
+        if (!writable) {
+            // 背压暂停了读取，不算读超时
+            lastReadNanos = now;
+        }
+        try {
+            if (config.readTimeoutMillis() > 0
+                    && now - lastReadNanos >= TimeUnit.MILLISECONDS.toNanos(config.readTimeoutMillis())) {
+                lastReadNanos = now;
+                handler.channelTimeout(this, ConnectionTimeout.READ);
+            }
+            if (channel.isOpen() && config.writeTimeoutMillis() > 0 && !outbound.isEmpty()
+                    && now - lastWriteNanos >= TimeUnit.MILLISECONDS.toNanos(config.writeTimeoutMillis())) {
+                lastWriteNanos = now;
+                handler.channelTimeout(this, ConnectionTimeout.WRITE);
+            }
+            if (channel.isOpen() && config.idleTimeoutMillis() > 0
+                    && now - Math.max(lastReadNanos, lastWriteNanos) >= TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMillis())) {
+                lastReadNanos = lastWriteNanos = now;
+                handler.channelTimeout(this, ConnectionTimeout.IDLE);
+            }
+        } catch (IOException e) {
+            close();
+        }
+        if (channel.isOpen() && timeout == null) {
+            scheduleTimeout(now);
+        }
+    }
+
+    ChannelHandler handler() {
+        return handler;
+    }
+
+    AdaptiveRecvAllocator.Handle recvHandle() {
+        return recvHandle;
+    }
+
+    void key(SelectionKey key) {
+        this.key = key;
+    }
+}
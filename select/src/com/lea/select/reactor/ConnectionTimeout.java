@@ -0,0 +1,16 @@
+package com.lea.select.reactor;
+
+/**
+ * 连接超时的类型，见 ReactorConfig 的 readTimeout / writeTimeout / idleTimeout
+ *
+ * @author lzc
+ * @create 2026.10.17 22:25
+ */
+public enum ConnectionTimeout {
+    // 一段时间内没有读到数据
+    READ,
+    // 出站队列中有数据，但一段时间内一个字节都没写出去（对端不读）
+    WRITE,
+    // 一段时间内既没有读也没有写
+    IDLE
+}
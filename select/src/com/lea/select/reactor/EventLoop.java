@@ -0,0 +1,389 @@
+package com.lea.select.reactor;
+
+import com.lea.buffer.AdaptiveRecvAllocator;
+import com.lea.buffer.BufferPool;
+import com.lea.select.metrics.ReactorMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 从 Reactor：一个线程 + 一个 Selector，负责若干连接的读写
+ *
+ *  其他线程（boss 线程）不能直接把通道注册到本 Selector 上：
+ *  register() 会和正在阻塞的 select() 争同一把锁，所以注册也作为任务交给事件循环线程完成
+ *
+ *  跨线程任务：execute() 把任务放进无锁的 MpscQueue，事件循环每轮处理完 IO 事件后执行。
+ *  唤醒是合并的：wakeupPending 从 false 变成 true 的那个生产者才真正唤醒一次，
+ *  事件循环在下一次阻塞之前才把它改回 false，所以一批任务只唤醒一次，而不是每个任务一次系统调用
+ *
+ *  连接的生命周期：注册后回调 channelActive()；读到 -1（对端关闭）、读写出错、超时、处理器抛出异常都会关闭连接，
+ *  取消 SelectionKey、释放出站队列，再回调 channelInactive()，不会留下一直可读的失效连接
+ *
+ *  超时：有定时任务时 select(timeout) 最多阻塞到时间轮的下一个 tick，每轮只处理到期的桶
+ *
+ *  低延迟：ReactorConfig.busyPoll() 打开后，阻塞之前先空转 selectNow()，见 select()
+ *
+ * @author lzc
+ * @create 2026.10.17 09:25
+ */
+public class EventLoop implements Runnable, Closeable {
+
+    private final Selector selector;
+    private final ReactorConfig config;
+    private final int busyPollIterations;
+    // 一轮最多执行的任务数，防止任务太多导致 IO 事件得不到处理
+    private static final int MAX_TASKS_PER_LOOP = 1024;
+
+    // 其他线程提交的任务
+    private final MpscQueue<Runnable> tasks = new MpscQueue<>();
+    // 已经有人唤醒过、事件循环还没有再次阻塞
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    // WakeupMode.PIPE 时使用
+    private final Pipe wakeupPipe;
+    private final ByteBuffer wakeupByte = ByteBuffer.allocate(1);
+    private final ByteBuffer wakeupDrain = ByteBuffer.allocate(64);
+    // 读缓冲区每次从缓冲区池获取、回调后归还，大小由连接各自的 Handle 决定，空闲连接不占用读缓冲区
+    private final AdaptiveRecvAllocator recvAllocator;
+    private final HashedWheelTimer timer;
+    // 运行指标，可能为 null
+    private final ReactorMetrics metrics;
+    // 本批任务中其他线程最早提交的时间（为 0 时由提交任务的线程记录），用来统计任务排队延迟，只在打开指标时记录
+    private final AtomicLong wakeupRequestNanos = new AtomicLong();
+    // 本轮 select() 返回的时间，同一轮中的读写都用它记录时间，不必每次调用 System.nanoTime()
+    private long now = System.nanoTime();
+    private volatile boolean running = true;
+    // 事件循环已经退出，正在或者已经执行最后一批任务、关闭所有连接
+    private volatile boolean shutdown;
+    private volatile Thread thread;
+
+    public EventLoop(ReactorConfig config) throws IOException {
+        this.config = config;
+        this.selector = Selector.open();
+        this.recvAllocator = new AdaptiveRecvAllocator(config.minReadBufferSize(), config.readBufferSize(),
+                config.maxReadBufferSize(), config.maxReadsPerEvent());
+        this.timer = new HashedWheelTimer(config.timerTickMillis(), TimeUnit.MILLISECONDS, config.timerWheelSize());
+        this.metrics = config.metrics();
+        this.busyPollIterations = config.busyPollIterations();
+        if (config.wakeupMode() == WakeupMode.PIPE) {
+            wakeupPipe = Pipe.open();
+            wakeupPipe.sink().configureBlocking(false);
+            wakeupPipe.source().configureBlocking(false);
+            wakeupPipe.source().register(selector, SelectionKey.OP_READ, wakeupPipe);
+        } else {
+            wakeupPipe = null;
+        }
+    }
+
+    /*
+    把一个已连接的通道交给本事件循环，可以在任意线程调用
+     */
+    public void register(SocketChannel channel, ChannelHandler handler) throws IOException {
+        channel.configureBlocking(false);
+        if (config.tcpNoDelay()) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        Connection connection = new Connection(channel, this, handler, recvAllocator.newHandle());
+        execute(() -> registerNow(connection));
+    }
+
+    /*
+    在事件循环线程中执行 task，可以在任意线程调用。
+    事件循环停止之后提交的任务不会再执行：提交之后 isShutdown() 为 true 时，任务可能赶上了最后一批、也可能永远不会执行，
+    必须收尾的任务（例如要归还缓冲区、完成 future）由提交的线程和任务本身争抢着结束，只结束一次
+     */
+    public void execute(Runnable task) {
+        boolean inEventLoop = inEventLoop();
+        if (metrics != null && !inEventLoop && wakeupRequestNanos.get() == 0) {
+            // 不论谁赢得唤醒都记录，事件循环空转时没有人需要唤醒它
+            wakeupRequestNanos.compareAndSet(0, System.nanoTime());
+        }
+        tasks.offer(task);
+        if (!inEventLoop && wakeupPending.compareAndSet(false, true)) {
+            wakeup();
+        }
+    }
+
+    private void wakeup() {
+        if (wakeupPipe == null) {
+            selector.wakeup();
+            return;
+        }
+        try {
+            // 管道满了说明已经有没处理的唤醒，写不进去也没关系
+            wakeupPipe.sink().write(wakeupByte.clear());
+        } catch (IOException e) {
+            selector.wakeup();
+        }
+    }
+
+    ReactorConfig config() {
+        return config;
+    }
+
+    /*
+    事件循环是否已经停止（调用了 close() 或者出错退出）
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /*
+    delay 之后在事件循环线程中执行 task，只能在事件循环线程中调用
+     */
+    public HashedWheelTimer.Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!inEventLoop()) {
+            throw new IllegalStateException("schedule() must be called from the event loop thread");
+        }
+        return timer.schedule(task, delay, unit);
+    }
+
+    HashedWheelTimer timer() {
+        return timer;
+    }
+
+    long now() {
+        return now;
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        try {
+            while (running) {
+                int ready = select();
+                now = System.nanoTime();
+                processSelectedKeys();
+                int work = timer.expire(now);
+                work += runTasks();
+                if (metrics != null) {
+                    metrics.onLoop(ready, work, System.nanoTime() - now);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            // 先于最后一次执行队列设置：之后才入队的任务，提交的线程一定能看到 shutdown
+            shutdown = true;
+            closeAll();
+        }
+    }
+
+    /*
+    没有定时任务时一直阻塞，否则最多阻塞到下一个 tick；配置了 busyPoll 时先空转
+     */
+    private int select() throws IOException {
+        if (busyPollIterations > 0) {
+            // 低延迟模式：先空转，有 IO 事件、新任务或者定时器到期就不再阻塞。
+            // 空转期间 wakeupPending 保持 true，提交任务的线程不调用 selector.wakeup()，新任务由空转检查到
+            wakeupPending.set(true);
+            for (int i = 0; i < busyPollIterations; i++) {
+                int ready = selector.selectNow();
+                if (ready > 0 || !tasks.isEmpty() || timer.nanosUntilNextTick(System.nanoTime()) == 0) {
+                    onBusyPoll(i + 1);
+                    return ready;
+                }
+                Thread.onSpinWait();
+            }
+            onBusyPoll(busyPollIterations);
+        }
+        // 从这里开始，新提交任务的线程需要唤醒事件循环；之前提交的任务由下面的 isEmpty() 检查到
+        wakeupPending.set(false);
+        if (!tasks.isEmpty()) {
+            return selector.selectNow();
+        }
+        long timeoutNanos = timer.nanosUntilNextTick(System.nanoTime());
+        if (timeoutNanos < 0) {
+            return selector.select();
+        }
+        long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos + 999_999);
+        if (timeoutMillis == 0) {
+            return selector.selectNow();
+        }
+        return selector.select(timeoutMillis);
+    }
+
+    /*
+    执行队列中的任务，返回执行的个数
+     */
+    private int runTasks() {
+        long requested = wakeupRequestNanos.get();
+        int count = 0;
+        Runnable task;
+        while (count < MAX_TASKS_PER_LOOP && (task = tasks.poll()) != null) {
+            count++;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        if (metrics != null && count > 0) {
+            metrics.onTasks(count, requested == 0 ? 0 : now - requested);
+            // 执行任务期间其他线程可能已经记录了新的时间，只清除本批读到的那个
+            if (requested != 0) {
+                wakeupRequestNanos.compareAndSet(requested, 0);
+            }
+        }
+        return count;
+    }
+
+    private void onBusyPoll(int iterations) {
+        if (metrics != null && iterations > 0) {
+            metrics.onBusyPoll(iterations);
+        }
+    }
+
+    private void registerNow(Connection connection) {
+        try {
+            SelectionKey key = connection.channel().register(selector, SelectionKey.OP_READ, connection);
+            connection.key(key);
+            connection.startTimeouts();
+            connection.handler().channelActive(connection);
+        } catch (ClosedChannelException e) {
+            // 注册之前客户端已经断开
+            connection.close();
+        } catch (IOException | RuntimeException e) {
+            // 处理器抛出的异常只关闭这一个连接，不能让事件循环线程退出
+            e.printStackTrace();
+            connection.close();
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (key.attachment() == wakeupPipe) {
+                drainWakeupPipe();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(connection);
+                }
+            } catch (IOException e) {
+                // 连接被重置等异常，直接关闭
+                connection.close();
+            } catch (RuntimeException e) {
+                // 处理器的 bug 只影响这一个连接，同一个 worker 上的其他连接照常处理
+                e.printStackTrace();
+                connection.close();
+            }
+        }
+    }
+
+    void onWrite(long bytes) {
+        if (metrics != null) {
+            metrics.onWrite(bytes);
+        }
+    }
+
+    void onClose() {
+        if (metrics != null) {
+            metrics.onClose();
+        }
+    }
+
+    private void drainWakeupPipe() {
+        try {
+            while (wakeupPipe.source().read(wakeupDrain.clear()) > 0) {
+                // 只是为了清空管道
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        SocketChannel channel = connection.channel();
+        ChannelHandler handler = connection.handler();
+        AdaptiveRecvAllocator.Handle recvHandle = connection.recvHandle();
+        recvHandle.reset();
+        try {
+            do {
+                ByteBuffer buffer = recvHandle.allocate(BufferPool.DEFAULT);
+                try {
+                    int len = channel.read(buffer);
+                    recvHandle.lastBytesRead(len);
+                    if (len < 0) {
+                        // 客户端关闭了输出
+                        connection.close();
+                        return;
+                    }
+                    if (len == 0) {
+                        return;
+                    }
+                    connection.onRead(now);
+                    if (metrics != null) {
+                        metrics.onRead(len);
+                    }
+                    buffer.flip();
+                    handler.channelRead(connection, buffer);
+                } finally {
+                    BufferPool.DEFAULT.release(buffer);
+                }
+                if (!connection.isOpen() || !connection.isWritable()) {
+                    // 连接已关闭，或者出站队列超过高水位暂停了读取
+                    return;
+                }
+            } while (recvHandle.continueReading());
+        } finally {
+            recvHandle.readComplete();
+        }
+    }
+
+    private void closeAll() {
+        // 已经提交的任务（例如注册新连接）先执行完，注册上的连接下面一起关闭
+        while (!tasks.isEmpty()) {
+            runTasks();
+        }
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                ((Connection) attachment).close();
+            }
+        }
+        try {
+            if (wakeupPipe != null) {
+                wakeupPipe.sink().close();
+                wakeupPipe.source().close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+    停止事件循环，已注册的连接在循环线程中关闭
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
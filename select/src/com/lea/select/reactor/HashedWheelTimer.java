@@ -0,0 +1,177 @@
+package com.lea.select.reactor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间轮定时器，由事件循环驱动，没有自己的线程
+ *
+ *  一、时间被切成固定长度的 tick，wheelSize 个桶组成一圈，定时任务按到期的 tick 放进对应的桶（双向链表）
+ *  二、添加、取消都是 O(1)；每个 tick 只处理一个桶，不需要扫描所有连接
+ *  三、超过一圈的任务记录剩余圈数，每次转到时减一；让 tick * wheelSize 大于常用的超时时间，
+ *      大部分任务都在第一圈到期
+ *  四、精度是一个 tick：任务不会提前执行，最多晚一个 tick（加上事件循环处理本轮事件的时间）
+ *
+ *  事件循环每轮 select(nanosUntilNextTick()) 之后调用 expire()。不是线程安全的，只能在事件循环线程中使用
+ *
+ * @author lzc
+ * @create 2026.10.17 22:20
+ */
+public class HashedWheelTimer {
+
+    private final long tickNanos;
+    private final Timeout[] wheel;
+    private final int mask;
+    private final long startNanos;
+    // 下一个要处理的 tick
+    private long tick;
+    private int size;
+    // 本 tick 到期的任务，先摘下来再执行，执行中新加的任务不会进入正在处理的桶
+    private Timeout expired;
+
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 20) {
+            throw new IllegalArgumentException("wheelSize: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        // 桶数取 2 的幂，下标用位运算
+        int buckets = 1;
+        while (buckets < wheelSize) {
+            buckets <<= 1;
+        }
+        this.wheel = new Timeout[buckets];
+        this.mask = wheel.length - 1;
+        this.startNanos = System.nanoTime();
+    }
+
+    /*
+    delay 之后执行 task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        long targetTick = Math.max(deadline / tickNanos, tick);
+        Timeout timeout = new Timeout(this, task, (targetTick - tick) / wheel.length);
+        int index = (int) (targetTick & mask);
+        timeout.bucket = index;
+        timeout.next = wheel[index];
+        if (wheel[index] != null) {
+            wheel[index].prev = timeout;
+        }
+        wheel[index] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /*
+    处理到 nowNanos 为止所有到期的 tick，返回执行的任务数
+     */
+    public int expire(long nowNanos) {
+        long current = (nowNanos - startNanos) / tickNanos;
+        int count = 0;
+        while (tick < current) {
+            Timeout timeout = wheel[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    unlink(timeout);
+                    timeout.state = Timeout.EXPIRED;
+                    timeout.next = expired;
+                    expired = timeout;
+                }
+                timeout = next;
+            }
+            tick++;
+            while (expired != null) {
+                timeout = expired;
+                expired = timeout.next;
+                timeout.next = null;
+                count++;
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+    距离下一个 tick 还有多少纳秒，没有任务时返回 -1（可以无限期阻塞在 select() 上）
+     */
+    public long nanosUntilNextTick(long nowNanos) {
+        if (size == 0) {
+            return -1;
+        }
+        return Math.max(0, (tick + 1) * tickNanos - (nowNanos - startNanos));
+    }
+
+    /*
+    还没到期、没有取消的任务数
+     */
+    public int size() {
+        return size;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        size--;
+    }
+
+    /*
+    一个定时任务
+     */
+    public static final class Timeout {
+
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private long remainingRounds;
+        private int bucket;
+        private int state;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long remainingRounds) {
+            this.timer = timer;
+            this.task = task;
+            this.remainingRounds = remainingRounds;
+        }
+
+        /*
+        取消任务，已经执行或已经取消时返回 false
+         */
+        public boolean cancel() {
+            if (state != WAITING) {
+                return false;
+            }
+            state = CANCELLED;
+            timer.unlink(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.lea.select.reactor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 多生产者 / 单消费者的无界无锁队列（单向链表）
+ *
+ *  生产者：getAndSet 把新节点换成尾节点，再把旧尾节点的 next 指向它，一次原子操作，不会失败重试
+ *  消费者：只有一个，头指针是普通字段，沿 next 往后取
+ *
+ *  生产者换掉尾节点之后、设置 next 之前，消费者会暂时看不到这个元素（当作队列为空），
+ *  生产者接下来一定会设置 next，下一次 poll() 就能取到
+ *
+ * @author lzc
+ * @create 2026.10.17 22:50
+ */
+public class MpscQueue<E> {
+
+    private final AtomicReference<Node<E>> tail;
+    // 哑节点，它后面的才是第一个元素，只在消费者线程中访问
+    private Node<E> head;
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    /*
+    生产者：入队，可以在任意线程调用
+     */
+    public void offer(E value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        Node<E> node = new Node<>(value);
+        Node<E> prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    /*
+    消费者：出队，队列为空时返回 null
+     */
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    /*
+    消费者：队列是否为空；正在入队、poll() 还取不到的元素也算非空
+     */
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    private static final class Node<E> {
+
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+}
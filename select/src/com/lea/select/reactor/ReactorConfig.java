@@ -0,0 +1,236 @@
+package com.lea.select.reactor;
+
+import com.lea.buffer.AdaptiveRecvAllocator;
+import com.lea.buffer.BufferPool;
+import com.lea.select.metrics.ReactorMetrics;
+
+/**
+ * 主从 Reactor 的配置
+ *
+ * @author lzc
+ * @create 2026.10.17 09:20
+ */
+public class ReactorConfig {
+
+    // worker 事件循环数量，默认等于 CPU 核数
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    // 读缓冲区大小：每个连接按最近读到的数据量在 [min, max] 之间自适应调整，从 initial 开始
+    private int minReadBufferSize = BufferPool.MIN_SIZE;
+    private int readBufferSize = AdaptiveRecvAllocator.DEFAULT_INITIAL;
+    private int maxReadBufferSize = AdaptiveRecvAllocator.DEFAULT_MAX;
+    // 一次读就绪事件中最多读几次，防止单个连接占满事件循环；没读满缓冲区时不再继续读
+    private int maxReadsPerEvent = 16;
+    // 出站队列高水位：超过后暂停读取该连接
+    private int writeHighWaterMark = 64 * 1024;
+    // 出站队列低水位：回落到这里以下恢复读取
+    private int writeLowWaterMark = 32 * 1024;
+    // 读超时 / 写超时 / 空闲超时（毫秒），0 表示不检查
+    private long readTimeoutMillis;
+    private long writeTimeoutMillis;
+    private long idleTimeoutMillis;
+    // 时间轮每个 tick 的长度（毫秒）和桶数，tick * 桶数最好大于最长的超时时间
+    private long timerTickMillis = 100;
+    private int timerWheelSize = 1024;
+    // 其他线程提交任务后唤醒事件循环的方式
+    private WakeupMode wakeupMode = WakeupMode.SELECTOR;
+    // 运行指标，null 表示不统计
+    private ReactorMetrics metrics;
+    // 阻塞在 select() 之前先用 selectNow() 空转几次，0 表示不空转
+    private int busyPollIterations;
+    // 关闭 Nagle 算法，小消息立即发出；默认不改变系统设置
+    private boolean tcpNoDelay;
+    // 监听队列长度，0 表示 JDK 默认值（50），大量连接同时建立时超出的会被内核丢弃、1 秒后重试
+    private int backlog;
+
+    public int workerCount() {
+        return workerCount;
+    }
+
+    public ReactorConfig workerCount(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount: " + workerCount);
+        }
+        this.workerCount = workerCount;
+        return this;
+    }
+
+    public int readBufferSize() {
+        return readBufferSize;
+    }
+
+    /*
+    固定大小的读缓冲区，不自适应
+     */
+    public ReactorConfig readBufferSize(int readBufferSize) {
+        return readBufferSize(readBufferSize, readBufferSize, readBufferSize);
+    }
+
+    public ReactorConfig readBufferSize(int min, int initial, int max) {
+        if (min <= 0 || initial < min || max < initial) {
+            throw new IllegalArgumentException("readBufferSize: min " + min + ", initial " + initial + ", max " + max);
+        }
+        this.minReadBufferSize = min;
+        this.readBufferSize = initial;
+        this.maxReadBufferSize = max;
+        return this;
+    }
+
+    public int minReadBufferSize() {
+        return minReadBufferSize;
+    }
+
+    public int maxReadBufferSize() {
+        return maxReadBufferSize;
+    }
+
+    public int maxReadsPerEvent() {
+        return maxReadsPerEvent;
+    }
+
+    public ReactorConfig maxReadsPerEvent(int maxReadsPerEvent) {
+        if (maxReadsPerEvent <= 0) {
+            throw new IllegalArgumentException("maxReadsPerEvent: " + maxReadsPerEvent);
+        }
+        this.maxReadsPerEvent = maxReadsPerEvent;
+        return this;
+    }
+
+    public int writeHighWaterMark() {
+        return writeHighWaterMark;
+    }
+
+    public int writeLowWaterMark() {
+        return writeLowWaterMark;
+    }
+
+    public ReactorConfig writeWaterMark(int low, int high) {
+        if (low < 0 || high < low) {
+            throw new IllegalArgumentException("writeWaterMark: low " + low + ", high " + high);
+        }
+        this.writeLowWaterMark = low;
+        this.writeHighWaterMark = high;
+        return this;
+    }
+
+    public long readTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public ReactorConfig readTimeoutMillis(long readTimeoutMillis) {
+        if (readTimeoutMillis < 0) {
+            throw new IllegalArgumentException("readTimeoutMillis: " + readTimeoutMillis);
+        }
+        this.readTimeoutMillis = readTimeoutMillis;
+        return this;
+    }
+
+    public long writeTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public ReactorConfig writeTimeoutMillis(long writeTimeoutMillis) {
+        if (writeTimeoutMillis < 0) {
+            throw new IllegalArgumentException("writeTimeoutMillis: " + writeTimeoutMillis);
+        }
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        return this;
+    }
+
+    public long idleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public ReactorConfig idleTimeoutMillis(long idleTimeoutMillis) {
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis: " + idleTimeoutMillis);
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /*
+    是否配置了任何一种超时
+     */
+    boolean timeoutsEnabled() {
+        return readTimeoutMillis > 0 || writeTimeoutMillis > 0 || idleTimeoutMillis > 0;
+    }
+
+    public long timerTickMillis() {
+        return timerTickMillis;
+    }
+
+    public int timerWheelSize() {
+        return timerWheelSize;
+    }
+
+    public ReactorConfig timer(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("timer: tick " + tickMillis + ", wheelSize " + wheelSize);
+        }
+        this.timerTickMillis = tickMillis;
+        this.timerWheelSize = wheelSize;
+        return this;
+    }
+
+    public WakeupMode wakeupMode() {
+        return wakeupMode;
+    }
+
+    public ReactorConfig wakeupMode(WakeupMode wakeupMode) {
+        if (wakeupMode == null) {
+            throw new IllegalArgumentException("wakeupMode: null");
+        }
+        this.wakeupMode = wakeupMode;
+        return this;
+    }
+
+    public ReactorMetrics metrics() {
+        return metrics;
+    }
+
+    public ReactorConfig metrics(ReactorMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public int busyPollIterations() {
+        return busyPollIterations;
+    }
+
+    /*
+    低延迟模式：事件循环每次阻塞之前先调用 selectNow() 最多 iterations 次，有事件就立即处理，
+    省掉阻塞 select() 被唤醒的几十微秒；代价是空闲时也占满一个 CPU 核。
+    workerCount 要小于可用的核数，至少留一个核给 boss 线程和其他线程，否则空转的事件循环和它们抢 CPU，延迟反而更高。
+
+    JDK 没有暴露 SO_BUSY_POLL 和线程绑核，需要的话在 JVM 外面设置：
+    sysctl net.core.busy_poll，taskset 按线程名（reactor-worker-N）找到线程绑到固定的核
+     */
+    public ReactorConfig busyPoll(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("busyPoll: " + iterations);
+        }
+        this.busyPollIterations = iterations;
+        return this;
+    }
+
+    public boolean tcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public ReactorConfig tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public int backlog() {
+        return backlog;
+    }
+
+    public ReactorConfig backlog(int backlog) {
+        if (backlog < 0) {
+            throw new IllegalArgumentException("backlog: " + backlog);
+        }
+        this.backlog = backlog;
+        return this;
+    }
+}
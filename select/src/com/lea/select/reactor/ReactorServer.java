@@ -0,0 +1,189 @@
+package com.lea.select.reactor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * 主从 Reactor 服务端
+ *
+ *  一、boss 线程：独占一个 Selector，只处理 OP_ACCEPT
+ *  二、worker 线程：每个 worker 是一个 EventLoop，有自己的 Selector，负责连接的读写
+ *  三、boss 接收到连接后按轮询（round-robin）交给 worker，一个连接从此只在一个 worker 中处理
+ *
+ *  这样 accept 和读写分散到多个核上，吞吐量随核数近似线性增长
+ *
+ * @author lzc
+ * @create 2026.10.17 09:40
+ */
+public class ReactorServer implements Closeable {
+
+    // accept 连续出错时的重试间隔，从最小值开始每次翻倍
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final SocketAddress bindAddress;
+    private final ReactorConfig config;
+    private final Supplier<? extends ChannelHandler> handlerFactory;
+    private final EventLoop[] workers;
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private Thread bossThread;
+    private volatile boolean running;
+    // 下一个分配连接的 worker 下标，只在 boss 线程中修改
+    private int next;
+
+    public ReactorServer(int port, Supplier<? extends ChannelHandler> handlerFactory) {
+        this(new InetSocketAddress(port), new ReactorConfig(), handlerFactory);
+    }
+
+    public ReactorServer(SocketAddress bindAddress, ReactorConfig config, Supplier<? extends ChannelHandler> handlerFactory) {
+        this.bindAddress = bindAddress;
+        this.config = config;
+        this.handlerFactory = handlerFactory;
+        this.workers = new EventLoop[config.workerCount()];
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("server already started");
+        }
+        try {
+            // 先绑定端口，端口被占用时还没有启动任何线程
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(bindAddress, config.backlog());
+            acceptSelector = Selector.open();
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new EventLoop(config);
+                new Thread(workers[i], "reactor-worker-" + i).start();
+            }
+        } catch (IOException | RuntimeException e) {
+            // running 还是 false，close() 不会清理，这里关掉已经打开的通道和已经启动的 worker
+            abortStart(e);
+            throw e;
+        }
+        running = true;
+        bossThread = new Thread(this::acceptLoop, "reactor-boss");
+        bossThread.start();
+    }
+
+    private void abortStart(Exception cause) {
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] != null) {
+                workers[i].close();
+                workers[i] = null;
+            }
+        }
+        try {
+            if (acceptSelector != null) {
+                acceptSelector.close();
+            }
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void acceptLoop() {
+        long backoffMillis = 0;
+        try {
+            SelectionKey acceptKey = serverChannel.keyFor(acceptSelector);
+            while (running) {
+                if (backoffMillis > 0) {
+                    // 退避期间不关注 OP_ACCEPT，close() 的 wakeup() 仍然能提前结束等待
+                    acceptKey.interestOps(0);
+                    acceptSelector.select(backoffMillis);
+                    acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+                    if (!running) {
+                        break;
+                    }
+                }
+                acceptSelector.select();
+                Iterator<SelectionKey> it = acceptSelector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        try {
+                            accept();
+                            backoffMillis = 0;
+                        } catch (IOException e) {
+                            // 例如文件描述符用完（EMFILE）：马上重试还是同样的错误，退避之后再试，不空转、不刷屏
+                            if (backoffMillis == 0) {
+                                e.printStackTrace();
+                            }
+                            backoffMillis = Math.min(Math.max(backoffMillis * 2, MIN_ACCEPT_BACKOFF_MILLIS),
+                                    MAX_ACCEPT_BACKOFF_MILLIS);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+    一次把 backlog 中的连接全部取出；accept 出错时抛出，由 acceptLoop() 退避重试，
+    处理器工厂或者注册出错只关闭这一个连接
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            if (config.metrics() != null) {
+                config.metrics().onAccept();
+            }
+            EventLoop worker = workers[next];
+            next = (next + 1) % workers.length;
+            try {
+                worker.register(channel, handlerFactory.get());
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                channel.close();
+            }
+        }
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /*
+    阻塞直到服务端关闭
+     */
+    public void join() throws InterruptedException {
+        bossThread.join();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        acceptSelector.wakeup();
+        try {
+            bossThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        acceptSelector.close();
+        serverChannel.close();
+        for (EventLoop worker : workers) {
+            worker.close();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.lea.select.reactor;
+
+/**
+ * 其他线程向事件循环提交任务后，怎样唤醒阻塞在 select() 上的事件循环
+ *
+ * @author lzc
+ * @create 2026.10.17 22:55
+ */
+public enum WakeupMode {
+    // Selector.wakeup()，Linux 上 JDK 内部用 eventfd 实现
+    SELECTOR,
+    // 向一个 Pipe 的 SinkChannel 写一个字节，SourceChannel 注册在事件循环的 Selector 上（见 PipeTest）
+    PIPE
+}
@@ -0,0 +1,143 @@
+package com.lea.select.rpc;
+
+import com.lea.buffer.BufferPool;
+import com.lea.select.codec.FrameHandler;
+import com.lea.select.codec.LengthFieldFrameDecoder;
+import com.lea.select.reactor.ChannelHandler;
+import com.lea.select.reactor.Connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RPC 连接的公共部分：消息编解码和批量发送，客户端（RpcClient）和服务端（RpcServer）各有一个子类
+ *
+ *  消息格式，外层是 LengthFieldFrameDecoder 的 4 字节长度前缀：
+ *      [长度 4 字节][请求 id 8 字节][类型 1 字节][消息体]
+ *  响应带着请求的 id，所以一个连接上可以同时有很多个请求，响应也不必按请求的顺序返回
+ *
+ *  批量发送：消息先放进本连接的批次，第一条消息进批次时向事件循环提交一个 flush 任务。
+ *  事件循环先处理完本轮所有 IO 事件和排在前面的任务，再执行 flush，这期间产生的消息用一次聚集写入发出，
+ *  而不是每条消息一次 write 系统调用
+ *
+ *  除 encode() 外，所有方法都在所属事件循环线程中调用
+ *
+ * @author lzc
+ * @create 2026.10.18 03:00
+ */
+abstract class RpcChannel implements FrameHandler {
+
+    static final byte REQUEST = 0;
+    static final byte RESPONSE = 1;
+    static final byte ERROR = 2;
+
+    // 请求 id + 类型
+    private static final int HEADER_LENGTH = 9;
+    // 单条消息（不含长度前缀）的最大长度
+    static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    // 注册到事件循环之后才有
+    Connection connection;
+    // 等待 flush 的消息，每条一个池中的缓冲区（读模式）
+    private final List<ByteBuffer> batch = new ArrayList<>();
+    private boolean flushScheduled;
+
+    /*
+    作为 ReactorServer / EventLoop 的连接处理器
+     */
+    ChannelHandler handler() {
+        return new LengthFieldFrameDecoder(this, 4, MAX_FRAME_LENGTH) {
+            @Override
+            public void channelActive(Connection connection) {
+                RpcChannel.this.connection = connection;
+                active();
+            }
+
+            @Override
+            public void channelInactive(Connection connection) {
+                super.channelInactive(connection);
+                releaseBatch();
+                inactive();
+            }
+        };
+    }
+
+    /*
+    编码一条消息，payload 的 position 不变；返回池中的缓冲区（读模式），交给 enqueue() 之后由本类归还。
+    可以在任意线程调用
+     */
+    static ByteBuffer encode(long id, byte type, ByteBuffer payload) {
+        int length = HEADER_LENGTH + payload.remaining();
+        if (length > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("rpc message too large: " + payload.remaining() + " bytes");
+        }
+        ByteBuffer frame = BufferPool.DEFAULT.acquire(4 + length);
+        frame.putInt(length).putLong(id).put(type).put(payload.duplicate()).flip();
+        return frame;
+    }
+
+    /*
+    把编码好的消息加入批次，本轮事件循环结束前统一发出
+     */
+    void enqueue(ByteBuffer frame) {
+        if (connection == null || !connection.isOpen()) {
+            BufferPool.DEFAULT.release(frame);
+            return;
+        }
+        batch.add(frame);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            connection.eventLoop().execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            // 写不完的部分由 Connection 拷贝进出站队列，之后就可以归还
+            connection.write(batch.toArray(new ByteBuffer[0]));
+        } catch (IOException e) {
+            connection.close();
+        } finally {
+            releaseBatch();
+        }
+    }
+
+    private void releaseBatch() {
+        for (ByteBuffer frame : batch) {
+            BufferPool.DEFAULT.release(frame);
+        }
+        batch.clear();
+    }
+
+    @Override
+    public void onFrames(Connection connection, List<ByteBuffer> frames) throws IOException {
+        for (ByteBuffer frame : frames) {
+            if (frame.remaining() < HEADER_LENGTH) {
+                throw new IOException("rpc message too short: " + frame.remaining() + " bytes");
+            }
+            long id = frame.getLong();
+            byte type = frame.get();
+            onMessage(id, type, frame);
+            if (!connection.isOpen()) {
+                return;
+            }
+        }
+    }
+
+    /*
+    收到一条消息，payload 是消息体（读模式），只在回调期间有效
+     */
+    abstract void onMessage(long id, byte type, ByteBuffer payload) throws IOException;
+
+    void active() {
+    }
+
+    void inactive() {
+    }
+}
@@ -0,0 +1,243 @@
+package com.lea.select.rpc;
+
+import com.lea.buffer.BufferPool;
+import com.lea.select.reactor.EventLoop;
+import com.lea.select.reactor.HashedWheelTimer;
+import com.lea.select.reactor.ReactorConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RPC 客户端：一个连接上流水线发送请求，按请求 id 匹配响应
+ *
+ *  以前的客户端一次交换一个连接：发请求、shutdownOutput()、读响应、关闭，每次都要建连接、等一个往返。
+ *  这里一个连接一直复用，请求不等前面的响应就发出，同时在路上的请求数不受限制
+ *
+ *  一、call() 可以在任意线程调用：立即编码请求，然后作为任务交给事件循环，
+ *      在事件循环中登记等待中的请求、挂上超时、加入发送批次（同一轮的请求合并成一次写入，见 RpcChannel）
+ *  二、响应按 id 找到等待中的请求，完成它的 CompletableFuture；响应可以不按请求的顺序到达
+ *  三、超时用事件循环的时间轮，到期时 future 以 TimeoutException 失败，之后才到的响应直接丢弃；精度是一个 tick
+ *  四、连接断开时所有等待中的请求以 ClosedChannelException 失败；
+ *      与关闭同时提交、事件循环来不及执行的请求，由 call() 发现事件循环已经停止后同样以 ClosedChannelException 失败
+ *
+ *  future 在事件循环线程中完成，后续的 thenApply() 等也在事件循环线程中执行，不能阻塞；
+ *  耗时的处理用 thenApplyAsync() 交给其他线程
+ *
+ * @author lzc
+ * @create 2026.10.18 03:00
+ */
+public class RpcClient implements Closeable {
+
+    private final EventLoop eventLoop;
+    // 自己创建的事件循环，关闭时一起关闭
+    private final boolean ownEventLoop;
+    private final long defaultTimeoutMillis;
+    private final AtomicLong ids = new AtomicLong();
+    private final ClientChannel channel = new ClientChannel();
+    private volatile boolean closed;
+
+    /*
+    连接 address，自己创建一个事件循环线程，默认超时 5 秒
+     */
+    public RpcClient(SocketAddress address) throws IOException {
+        this(SocketChannel.open(address), null, 5000);
+    }
+
+    /*
+    使用已连接的通道；eventLoop 为 null 时自己创建，多个客户端可以共用一个事件循环。
+    defaultTimeoutMillis 为 0 表示不超时
+     */
+    public RpcClient(SocketChannel socketChannel, EventLoop eventLoop, long defaultTimeoutMillis) throws IOException {
+        if (defaultTimeoutMillis < 0) {
+            throw new IllegalArgumentException("defaultTimeoutMillis: " + defaultTimeoutMillis);
+        }
+        this.ownEventLoop = eventLoop == null;
+        if (ownEventLoop) {
+            eventLoop = new EventLoop(new ReactorConfig().timer(10, 1024));
+            Thread thread = new Thread(eventLoop, "rpc-client");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        this.eventLoop = eventLoop;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        try {
+            eventLoop.register(socketChannel, channel.handler());
+        } catch (IOException e) {
+            socketChannel.close();
+            if (ownEventLoop) {
+                eventLoop.close();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<ByteBuffer> call(ByteBuffer request) {
+        return call(request, defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+    发送请求，方法返回后 request 可以立即复用。
+    响应是一个新的堆缓冲区（读模式），归调用方所有；timeout 为 0 表示不超时
+     */
+    public CompletableFuture<ByteBuffer> call(ByteBuffer request, long timeout, TimeUnit unit) {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
+        }
+        long id = ids.incrementAndGet();
+        ByteBuffer frame;
+        try {
+            frame = RpcChannel.encode(id, RpcChannel.REQUEST, request);
+        } catch (IllegalArgumentException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        Send send = new Send(id, frame, future, unit.toNanos(timeout));
+        eventLoop.execute(send);
+        if (eventLoop.isShutdown()) {
+            // close() 或者事件循环停止与 execute() 同时发生，任务可能永远不会执行
+            send.reject();
+        }
+        return future;
+    }
+
+    /*
+    关闭连接，等待中的请求以 ClosedChannelException 失败
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (ownEventLoop) {
+            // 事件循环停止时关闭上面的所有连接
+            eventLoop.close();
+        } else {
+            eventLoop.execute(() -> {
+                if (channel.connection != null) {
+                    channel.connection.close();
+                }
+            });
+        }
+    }
+
+    /*
+    交给事件循环的发送任务。事件循环停止时任务可能不会执行，
+    事件循环执行它和 call() 拒绝它由 claimed 决定谁先，frame 只归还一次、future 只完成一次
+     */
+    private final class Send implements Runnable {
+
+        private final long id;
+        private final ByteBuffer frame;
+        private final CompletableFuture<ByteBuffer> future;
+        private final long timeoutNanos;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Send(long id, ByteBuffer frame, CompletableFuture<ByteBuffer> future, long timeoutNanos) {
+            this.id = id;
+            this.frame = frame;
+            this.future = future;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                channel.send(id, frame, future, timeoutNanos);
+            }
+        }
+
+        void reject() {
+            if (claimed.compareAndSet(false, true)) {
+                BufferPool.DEFAULT.release(frame);
+                future.completeExceptionally(new ClosedChannelException());
+            }
+        }
+    }
+
+    /*
+    等待响应的请求
+     */
+    private static final class Call {
+
+        final CompletableFuture<ByteBuffer> future;
+        HashedWheelTimer.Timeout timeout;
+
+        Call(CompletableFuture<ByteBuffer> future) {
+            this.future = future;
+        }
+    }
+
+    private class ClientChannel extends RpcChannel {
+
+        // 等待响应的请求，只在事件循环线程中访问
+        private final Map<Long, Call> pending = new HashMap<>();
+
+        void send(long id, ByteBuffer frame, CompletableFuture<ByteBuffer> future, long timeoutNanos) {
+            if (connection == null || !connection.isOpen()) {
+                BufferPool.DEFAULT.release(frame);
+                future.completeExceptionally(new ClosedChannelException());
+                return;
+            }
+            Call call = new Call(future);
+            pending.put(id, call);
+            if (timeoutNanos > 0) {
+                call.timeout = eventLoop.schedule(() -> {
+                    if (pending.remove(id) != null) {
+                        future.completeExceptionally(new TimeoutException("rpc " + id + " timed out"));
+                    }
+                }, timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            enqueue(frame);
+        }
+
+        @Override
+        void onMessage(long id, byte type, ByteBuffer payload) throws IOException {
+            if (type != RESPONSE && type != ERROR) {
+                throw new IOException("unexpected rpc message type " + type);
+            }
+            Call call = pending.remove(id);
+            if (call == null) {
+                // 已经超时
+                return;
+            }
+            if (call.timeout != null) {
+                call.timeout.cancel();
+            }
+            if (type == ERROR) {
+                call.future.completeExceptionally(new RpcException(StandardCharsets.UTF_8.decode(payload).toString()));
+                return;
+            }
+            ByteBuffer response = ByteBuffer.allocate(payload.remaining());
+            response.put(payload).flip();
+            call.future.complete(response);
+        }
+
+        @Override
+        void inactive() {
+            closed = true;
+            for (Call call : pending.values()) {
+                if (call.timeout != null) {
+                    call.timeout.cancel();
+                }
+                call.future.completeExceptionally(new ClosedChannelException());
+            }
+            pending.clear();
+        }
+    }
+}
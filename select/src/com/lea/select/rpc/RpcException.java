@@ -0,0 +1,18 @@
+package com.lea.select.rpc;
+
+import java.io.IOException;
+
+/**
+ * 服务端处理请求失败（RpcService 抛出异常或者异常完成），消息是服务端异常的描述
+ *
+ * @author lzc
+ * @create 2026.10.18 03:00
+ */
+public class RpcException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RpcException(String message) {
+        super(message);
+    }
+}
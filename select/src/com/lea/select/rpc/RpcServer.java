@@ -0,0 +1,145 @@
+package com.lea.select.rpc;
+
+import com.lea.buffer.BufferPool;
+import com.lea.select.reactor.EventLoop;
+import com.lea.select.reactor.ReactorConfig;
+import com.lea.select.reactor.ReactorServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * RPC 服务端：主从 Reactor（ReactorServer）+ 长度前缀帧 + 请求 id
+ *
+ *  一、一个连接上的请求连续到达（客户端流水线发送），每个请求解码出来就交给 RpcService，不等前一个请求完成
+ *  二、RpcService 返回的 CompletionStage 完成时发送响应：在事件循环线程中完成的直接进批次，
+ *      在其他线程中完成的作为任务交给事件循环；先完成的先返回，慢请求不会挡住后面的快请求。
+ *      事件循环已经停止时响应直接丢弃，帧归还缓冲区池
+ *  三、同一轮事件循环中产生的响应合并成一次写入，见 RpcChannel
+ *
+ * @author lzc
+ * @create 2026.10.18 03:00
+ */
+public class RpcServer implements Closeable {
+
+    private final ReactorServer server;
+
+    public RpcServer(int port, RpcService service) {
+        this(new InetSocketAddress(port), new ReactorConfig(), service);
+    }
+
+    public RpcServer(SocketAddress bindAddress, ReactorConfig config, RpcService service) {
+        this.server = new ReactorServer(bindAddress, config, () -> new ServerChannel(service).handler());
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return server.localAddress();
+    }
+
+    /*
+    阻塞直到服务端关闭
+     */
+    public void join() throws InterruptedException {
+        server.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private static class ServerChannel extends RpcChannel {
+
+        private final RpcService service;
+
+        ServerChannel(RpcService service) {
+            this.service = service;
+        }
+
+        @Override
+        void onMessage(long id, byte type, ByteBuffer payload) throws IOException {
+            if (type != REQUEST) {
+                throw new IOException("unexpected rpc message type " + type);
+            }
+            CompletionStage<ByteBuffer> result;
+            try {
+                result = service.call(payload);
+            } catch (IOException | RuntimeException e) {
+                reply(id, null, e);
+                return;
+            }
+            result.whenComplete((response, cause) -> reply(id, response, cause));
+        }
+
+        /*
+        可能在任意线程调用
+         */
+        private void reply(long id, ByteBuffer response, Throwable cause) {
+            ByteBuffer frame;
+            try {
+                if (cause == null && response == null) {
+                    cause = new NullPointerException("rpc service returned null");
+                }
+                if (cause != null) {
+                    if (cause instanceof CompletionException && cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    frame = encode(id, ERROR, StandardCharsets.UTF_8.encode(cause.toString()));
+                } else {
+                    frame = encode(id, RESPONSE, response);
+                }
+            } catch (IllegalArgumentException e) {
+                // 响应太大
+                frame = encode(id, ERROR, StandardCharsets.UTF_8.encode(e.toString()));
+            }
+            EventLoop eventLoop = connection.eventLoop();
+            if (eventLoop.inEventLoop()) {
+                enqueue(frame);
+            } else {
+                Reply reply = new Reply(frame);
+                eventLoop.execute(reply);
+                if (eventLoop.isShutdown()) {
+                    // 事件循环与 execute() 同时停止，任务可能永远不会执行
+                    reply.reject();
+                }
+            }
+        }
+
+        /*
+        交给事件循环的响应：事件循环执行它和 reply() 拒绝它由 claimed 决定谁先，frame 只归还一次
+         */
+        private final class Reply implements Runnable {
+
+            private final ByteBuffer frame;
+            private final AtomicBoolean claimed = new AtomicBoolean();
+
+            Reply(ByteBuffer frame) {
+                this.frame = frame;
+            }
+
+            @Override
+            public void run() {
+                if (claimed.compareAndSet(false, true)) {
+                    enqueue(frame);
+                }
+            }
+
+            void reject() {
+                if (claimed.compareAndSet(false, true)) {
+                    BufferPool.DEFAULT.release(frame);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lea.select.rpc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * RPC 服务端的业务逻辑，在连接所属的事件循环线程中调用，不能阻塞
+ *
+ * @author lzc
+ * @create 2026.10.18 03:00
+ */
+@FunctionalInterface
+public interface RpcService {
+
+    /*
+    request 是请求体（读模式），只在调用期间有效，异步处理需要先拷贝出来。
+    返回的 CompletionStage 可以在任意线程完成，响应按完成的先后发出，不必按请求的顺序；
+    抛出异常或者异常完成时，客户端的 future 以 RpcException 失败
+     */
+    CompletionStage<ByteBuffer> call(ByteBuffer request) throws IOException;
+}
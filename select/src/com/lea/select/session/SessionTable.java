@@ -0,0 +1,288 @@
+package com.lea.select.session;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.IntConsumer;
+
+/**
+ * 堆外的连接状态表：int 连接 id -> 固定布局的记录
+ *
+ *  每个连接一个状态对象（SelectionKey.attach()），几十万连接就是几百万个小对象，GC 要反复扫描它们；
+ *  这里所有状态都放在一块 allocateDirect() 分配的内存里，打开、关闭连接不产生任何垃圾
+ *
+ *  一、内存布局：[索引区 indexSlots * 8 字节][记录区 maxSessions * 48 字节]，按本机字节序用绝对位置读写
+ *  二、索引区是开放寻址（线性探测）的哈希表，每个槽位 [连接 id 4 字节][记录号 + 1 4 字节]，记录号 + 1 为 0 表示空槽；
+ *      槽位数是 maxSessions 向上取 2 的幂再乘 2，装载因子不超过 0.5。删除时把后面同一探测链上的槽位前移，不留墓碑
+ *  三、记录区的空闲记录串成链表，链表指针存放在空闲记录自己的 id 字段里，不需要额外的内存；
+ *      从没用过的记录不在链表里，用 used 水位线分配，创建时不需要初始化整个区域
+ *  四、open() / find() 返回记录号，用记录号读写字段；close() 之后记录号会被新的连接复用，不能再使用
+ *
+ *  每个连接 48 字节记录 + 16 ~ 32 字节索引。不是线程安全的，和 Selector 一样只在一个线程中使用
+ *
+ * @author lzc
+ * @create 2026.10.18 02:30
+ */
+public class SessionTable {
+
+    // 记录布局
+    private static final int ID = 0;
+    private static final int FLAGS = 4;
+    private static final int READ_OFFSET = 8;
+    private static final int WRITE_OFFSET = 12;
+    private static final int CREATED = 16;
+    private static final int LAST_ACTIVE = 24;
+    private static final int BYTES_READ = 32;
+    private static final int BYTES_WRITTEN = 40;
+    public static final int RECORD_SIZE = 48;
+
+    private static final int INDEX_SLOT_SIZE = 8;
+
+    private final ByteBuffer memory;
+    private final int maxSessions;
+    private final int indexMask;
+    private final int recordBase;
+    private int size;
+    // 从没用过的记录从 used 开始
+    private int used;
+    // 空闲链表的头，-1 表示空
+    private int freeHead = -1;
+
+    public SessionTable(int maxSessions) {
+        if (maxSessions <= 0 || maxSessions > (1 << 24)) {
+            throw new IllegalArgumentException("maxSessions: " + maxSessions);
+        }
+        int capacity = Integer.highestOneBit(maxSessions);
+        if (capacity < maxSessions) {
+            capacity <<= 1;
+        }
+        // 至少一半是空槽，探测总能停在空槽上
+        int indexSlots = capacity << 1;
+        this.maxSessions = maxSessions;
+        this.indexMask = indexSlots - 1;
+        this.recordBase = indexSlots * INDEX_SLOT_SIZE;
+        // 分配出来的直接缓冲区是全 0 的，索引区一开始就都是空槽
+        this.memory = ByteBuffer.allocateDirect(recordBase + maxSessions * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    /*
+    打开一个连接的记录，所有字段为 0，created 和 lastActive 为 now。
+    表满时返回 -1，id 已经存在时抛 IllegalStateException
+     */
+    public int open(int id, long now) {
+        int slot = indexOf(id);
+        if (memory.getInt(slot + 4) != 0) {
+            throw new IllegalStateException("session already open: " + id);
+        }
+        int record;
+        if (freeHead >= 0) {
+            record = freeHead;
+            freeHead = memory.getInt(offset(record) + ID);
+        } else if (used < maxSessions) {
+            record = used++;
+        } else {
+            return -1;
+        }
+        memory.putInt(slot, id);
+        memory.putInt(slot + 4, record + 1);
+        size++;
+
+        int offset = offset(record);
+        memory.putInt(offset + ID, id);
+        memory.putInt(offset + FLAGS, 0);
+        memory.putInt(offset + READ_OFFSET, 0);
+        memory.putInt(offset + WRITE_OFFSET, 0);
+        memory.putLong(offset + CREATED, now);
+        memory.putLong(offset + LAST_ACTIVE, now);
+        memory.putLong(offset + BYTES_READ, 0);
+        memory.putLong(offset + BYTES_WRITTEN, 0);
+        return record;
+    }
+
+    /*
+    连接的记录号，不存在返回 -1
+     */
+    public int find(int id) {
+        return memory.getInt(indexOf(id) + 4) - 1;
+    }
+
+    /*
+    关闭连接，记录放回空闲链表，不存在返回 false
+     */
+    public boolean close(int id) {
+        int slot = indexOf(id);
+        int record = memory.getInt(slot + 4) - 1;
+        if (record < 0) {
+            return false;
+        }
+        memory.putInt(offset(record) + ID, freeHead);
+        freeHead = record;
+        size--;
+        removeSlot(slot);
+        return true;
+    }
+
+    /*
+    id 所在的索引槽位，不存在时是探测链上的第一个空槽
+     */
+    private int indexOf(int id) {
+        int i = hash(id);
+        while (true) {
+            int slot = i * INDEX_SLOT_SIZE;
+            if (memory.getInt(slot + 4) == 0 || memory.getInt(slot) == id) {
+                return slot;
+            }
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    /*
+    删除索引槽位：后面同一探测链上的槽位如果从被删的位置也能探测到，就前移填上空位
+     */
+    private void removeSlot(int slot) {
+        int hole = slot / INDEX_SLOT_SIZE;
+        int i = hole;
+        while (true) {
+            i = (i + 1) & indexMask;
+            int next = i * INDEX_SLOT_SIZE;
+            int record = memory.getInt(next + 4);
+            if (record == 0) {
+                break;
+            }
+            int id = memory.getInt(next);
+            int home = hash(id);
+            // home 不在 (hole, i] 之间（环形）时，这个槽位可以移到 hole
+            if (((i - home) & indexMask) >= ((i - hole) & indexMask)) {
+                int target = hole * INDEX_SLOT_SIZE;
+                memory.putInt(target, id);
+                memory.putInt(target + 4, record);
+                hole = i;
+            }
+        }
+        int target = hole * INDEX_SLOT_SIZE;
+        memory.putInt(target, 0);
+        memory.putInt(target + 4, 0);
+    }
+
+    private int hash(int id) {
+        // 连接 id 通常是连续分配的，乘法散列把它们打散
+        int h = id * 0x9E3779B9;
+        return (h ^ h >>> 16) & indexMask;
+    }
+
+    private int offset(int record) {
+        return recordBase + record * RECORD_SIZE;
+    }
+
+    /*
+    依次回调所有打开的记录号，回调中不能 open() / close()
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i <= indexMask; i++) {
+            int record = memory.getInt(i * INDEX_SLOT_SIZE + 4) - 1;
+            if (record >= 0) {
+                action.accept(record);
+            }
+        }
+    }
+
+    // ------------------------------ 字段 ------------------------------
+
+    public int id(int record) {
+        return memory.getInt(offset(record) + ID);
+    }
+
+    /*
+    状态位由使用方定义
+     */
+    public int flags(int record) {
+        return memory.getInt(offset(record) + FLAGS);
+    }
+
+    public void setFlags(int record, int flags) {
+        memory.putInt(offset(record) + FLAGS, flags);
+    }
+
+    public void addFlags(int record, int flags) {
+        int offset = offset(record) + FLAGS;
+        memory.putInt(offset, memory.getInt(offset) | flags);
+    }
+
+    public void clearFlags(int record, int flags) {
+        int offset = offset(record) + FLAGS;
+        memory.putInt(offset, memory.getInt(offset) & ~flags);
+    }
+
+    /*
+    读写偏移：例如当前帧已经读了多少、出站数据已经写了多少
+     */
+    public int readOffset(int record) {
+        return memory.getInt(offset(record) + READ_OFFSET);
+    }
+
+    public void setReadOffset(int record, int value) {
+        memory.putInt(offset(record) + READ_OFFSET, value);
+    }
+
+    public int writeOffset(int record) {
+        return memory.getInt(offset(record) + WRITE_OFFSET);
+    }
+
+    public void setWriteOffset(int record, int value) {
+        memory.putInt(offset(record) + WRITE_OFFSET, value);
+    }
+
+    public long created(int record) {
+        return memory.getLong(offset(record) + CREATED);
+    }
+
+    public long lastActive(int record) {
+        return memory.getLong(offset(record) + LAST_ACTIVE);
+    }
+
+    public void touch(int record, long now) {
+        memory.putLong(offset(record) + LAST_ACTIVE, now);
+    }
+
+    public long bytesRead(int record) {
+        return memory.getLong(offset(record) + BYTES_READ);
+    }
+
+    /*
+    累加读到的字节数，同时更新 lastActive
+     */
+    public void onRead(int record, int bytes, long now) {
+        int offset = offset(record);
+        memory.putLong(offset + BYTES_READ, memory.getLong(offset + BYTES_READ) + bytes);
+        memory.putLong(offset + LAST_ACTIVE, now);
+    }
+
+    public long bytesWritten(int record) {
+        return memory.getLong(offset(record) + BYTES_WRITTEN);
+    }
+
+    /*
+    累加写出的字节数，同时更新 lastActive
+     */
+    public void onWrite(int record, int bytes, long now) {
+        int offset = offset(record);
+        memory.putLong(offset + BYTES_WRITTEN, memory.getLong(offset + BYTES_WRITTEN) + bytes);
+        memory.putLong(offset + LAST_ACTIVE, now);
+    }
+
+    // ------------------------------ 统计 ------------------------------
+
+    public int size() {
+        return size;
+    }
+
+    public int maxSessions() {
+        return maxSessions;
+    }
+
+    /*
+    占用的堆外内存字节数
+     */
+    public int memoryBytes() {
+        return memory.capacity();
+    }
+}
@@ -0,0 +1,16 @@
+package com.lea.select.udp;
+
+/**
+ * 数据报处理器，在 UdpIngestServer 的工作线程中执行，多个工作线程会并发调用
+ *
+ * @author lzc
+ * @create 2026.10.17 20:20
+ */
+@FunctionalInterface
+public interface DatagramHandler {
+
+    /*
+    slot 只在回调期间有效，返回后槽位会被下一个数据报复用
+     */
+    void onDatagram(DatagramSlot slot);
+}
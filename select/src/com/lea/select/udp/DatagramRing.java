@@ -0,0 +1,92 @@
+package com.lea.select.udp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单生产者 / 多消费者的有界环形队列，槽位预先分配，运行期间不产生垃圾
+ *
+ *  每个槽位有一个序号（sequence）：
+ *      sequence == 位置        空闲，生产者可以写入
+ *      sequence == 位置 + 1    已发布，消费者可以取走
+ *      消费者处理完归还后 sequence = 位置 + 容量，留给下一圈的生产者
+ *  生产者只有一个，写指针不需要 CAS；多个消费者通过 CAS 读指针争抢槽位
+ *
+ * @author lzc
+ * @create 2026.10.17 20:10
+ */
+public class DatagramRing {
+
+    private final DatagramSlot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    // 生产者写指针，只在接收线程中修改
+    private long producer;
+    private final AtomicLong consumer = new AtomicLong();
+
+    public DatagramRing(int capacity, int maxDatagramSize) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new DatagramSlot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new DatagramSlot(maxDatagramSize);
+            sequences.set(i, i);
+        }
+    }
+
+    /*
+    生产者：取得下一个可写的槽位，队列满时返回 null；在 publish() 之前重复调用返回同一个槽位
+     */
+    DatagramSlot claim() {
+        int index = (int) producer & mask;
+        if (sequences.get(index) != producer) {
+            return null;
+        }
+        DatagramSlot slot = slots[index];
+        slot.sequence = producer;
+        return slot;
+    }
+
+    /*
+    生产者：发布 claim() 得到的槽位
+     */
+    void publish(DatagramSlot slot) {
+        sequences.set((int) slot.sequence & mask, slot.sequence + 1);
+        producer++;
+    }
+
+    /*
+    消费者：取走一个已发布的槽位，队列空时返回 null；处理完必须 release()
+     */
+    public DatagramSlot poll() {
+        while (true) {
+            long position = consumer.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position + 1) {
+                if (consumer.compareAndSet(position, position + 1)) {
+                    DatagramSlot slot = slots[index];
+                    slot.sequence = position;
+                    return slot;
+                }
+            } else if (sequence < position + 1) {
+                return null;
+            }
+            // 其他消费者已经取走，重试
+        }
+    }
+
+    /*
+    消费者：归还槽位
+     */
+    public void release(DatagramSlot slot) {
+        sequences.set((int) slot.sequence & mask, slot.sequence + slots.length);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
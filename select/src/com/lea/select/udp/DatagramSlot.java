@@ -0,0 +1,41 @@
+package com.lea.select.udp;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * 环形队列中预先分配好的一个槽位：数据报内容、发送方地址、接收时间
+ *
+ * @author lzc
+ * @create 2026.10.17 20:00
+ */
+public class DatagramSlot {
+
+    final ByteBuffer buffer;
+    SocketAddress sender;
+    long receiveNanos;
+    // 槽位当前对应的序号，归还时用
+    long sequence;
+
+    DatagramSlot(int maxDatagramSize) {
+        this.buffer = ByteBuffer.allocateDirect(maxDatagramSize);
+    }
+
+    /*
+    数据报内容（读模式）
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public SocketAddress sender() {
+        return sender;
+    }
+
+    /*
+    System.nanoTime() 时间戳
+     */
+    public long receiveNanos() {
+        return receiveNanos;
+    }
+}
@@ -0,0 +1,225 @@
+package com.lea.select.udp;
+
+import com.lea.select.metrics.MetricsSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 高速 UDP 接收
+ *
+ *  NonBlockingNIO2.receive() 每次读就绪只收一个数据报，每次新建缓冲区，并且在接收线程里打印，
+ *  接收线程跟不上时内核接收缓冲区满了就会丢包
+ *
+ *  一、接收线程：每次唤醒循环 receive()，直到没有数据或者达到批量上限，
+ *      数据报直接收进环形队列预先分配好的槽位，记录发送方地址和接收时间
+ *  二、工作线程：从环形队列取数据报交给 DatagramHandler，处理慢不会影响接收
+ *  三、环形队列满了就丢弃（数据报收进临时缓冲区后丢掉，否则内核缓冲区也会满），计入 dropped
+ *  四、SO_RCVBUF 可调，实际生效的大小受系统 net.core.rmem_max 限制，见 receiveBufferSize()
+ *  五、计数可以通过 MetricsEndpoint 拉取，不必在接收线程里打印
+ *
+ * @author lzc
+ * @create 2026.10.17 20:30
+ */
+public class UdpIngestServer implements Closeable, MetricsSource {
+
+    private final SocketAddress bindAddress;
+    private final DatagramHandler handler;
+    private final DatagramRing ring;
+    private final int workerCount;
+    private final int receiveBufferSize;
+    private final int maxBatch;
+    private final ByteBuffer scratch;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder handlerErrors = new LongAdder();
+
+    private DatagramChannel channel;
+    private Selector selector;
+    private Thread receiver;
+    private Thread[] workers;
+    private volatile boolean running;
+
+    public UdpIngestServer(int port, int workerCount, DatagramHandler handler) {
+        this(new InetSocketAddress(port), 65536, 2048, workerCount, 4 * 1024 * 1024, 256, handler);
+    }
+
+    /*
+    ringSize：环形队列槽位数（2 的幂）；maxDatagramSize：槽位大小，超出的部分被截断；
+    receiveBufferSize：SO_RCVBUF；maxBatch：一次唤醒最多接收的数据报数
+     */
+    public UdpIngestServer(SocketAddress bindAddress, int ringSize, int maxDatagramSize, int workerCount,
+                           int receiveBufferSize, int maxBatch, DatagramHandler handler) {
+        this.bindAddress = bindAddress;
+        this.handler = handler;
+        this.ring = new DatagramRing(ringSize, maxDatagramSize);
+        this.workerCount = workerCount;
+        this.receiveBufferSize = receiveBufferSize;
+        this.maxBatch = maxBatch;
+        this.scratch = ByteBuffer.allocateDirect(maxDatagramSize);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("server already started");
+        }
+        channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        channel.configureBlocking(false);
+        channel.bind(bindAddress);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        running = true;
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::consume, "udp-ingest-worker-" + i);
+            workers[i].start();
+        }
+        receiver = new Thread(this::receiveLoop, "udp-ingest-receiver");
+        receiver.start();
+    }
+
+    private void receiveLoop() {
+        try {
+            while (running) {
+                selector.select();
+                selector.selectedKeys().clear();
+                drain();
+            }
+        } catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+    一次唤醒尽可能多地接收
+     */
+    private void drain() throws IOException {
+        for (int i = 0; i < maxBatch; i++) {
+            DatagramSlot slot = ring.claim();
+            if (slot == null) {
+                // 队列满：收下来丢掉
+                scratch.clear();
+                if (channel.receive(scratch) == null) {
+                    return;
+                }
+                dropped.increment();
+                continue;
+            }
+            slot.buffer.clear();
+            SocketAddress sender = channel.receive(slot.buffer);
+            if (sender == null) {
+                // 没有数据了，槽位留给下一次
+                return;
+            }
+            slot.buffer.flip();
+            slot.sender = sender;
+            slot.receiveNanos = System.nanoTime();
+            ring.publish(slot);
+            received.increment();
+        }
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (running) {
+            DatagramSlot slot = ring.poll();
+            if (slot == null) {
+                // 先自旋，再让出 CPU，最后短暂休眠
+                if (++idle < 100) {
+                    Thread.onSpinWait();
+                } else if (idle < 200) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                }
+                continue;
+            }
+            idle = 0;
+            try {
+                handler.onDatagram(slot);
+            } catch (RuntimeException e) {
+                handlerErrors.increment();
+            } finally {
+                ring.release(slot);
+                processed.increment();
+            }
+        }
+    }
+
+    public long received() {
+        return received.sum();
+    }
+
+    /*
+    环形队列满而丢弃的数据报数（内核丢弃的看 netstat -su）
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long processed() {
+        return processed.sum();
+    }
+
+    public long handlerErrors() {
+        return handlerErrors.sum();
+    }
+
+    @Override
+    public void appendMetrics(StringBuilder out) {
+        String label = "{bind=\"" + bindAddress + "\"}";
+        out.append("udp_received_total").append(label).append(' ').append(received()).append('\n');
+        out.append("udp_dropped_total").append(label).append(' ').append(dropped()).append('\n');
+        out.append("udp_processed_total").append(label).append(' ').append(processed()).append('\n');
+        out.append("udp_handler_errors_total").append(label).append(' ').append(handlerErrors()).append('\n');
+    }
+
+    /*
+    实际生效的 SO_RCVBUF
+     */
+    public int receiveBufferSize() throws IOException {
+        return channel.getOption(StandardSocketOptions.SO_RCVBUF);
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    public void join() throws InterruptedException {
+        receiver.join();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            receiver.join();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+        channel.close();
+    }
+}